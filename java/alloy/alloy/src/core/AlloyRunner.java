@@ -2,13 +2,11 @@ package core;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URI;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.deckfour.xes.extension.XExtensionParser;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
 import org.deckfour.xes.out.XesXmlSerializer;
@@ -16,7 +14,9 @@ import org.deckfour.xes.out.XesXmlSerializer;
 import core.exceptions.BadSolutionException;
 import core.exceptions.GenerationException;
 import core.helpers.IOHelper;
+import core.helpers.LogFiles;
 import core.helpers.StatisticsHelper;
+import core.helpers.XesExtensions;
 import core.models.AlloyRunConfiguration;
 import core.models.AlloyRunConfiguration.ExecutionMode;
 import declare.DeclareParserException;
@@ -30,15 +30,11 @@ public class AlloyRunner {
     }
 	
 	private static void addExtensions(XLog log) {
-        if (Global.noExtensions)
+        if (RunContext.current().noExtensions)
             return;
 
         try {
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/lifecycle.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/org.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/time.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/concept.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/semantic.xesext")));
+            log.getExtensions().addAll(XesExtensions.getStandard());
             log.getGlobalTraceAttributes().add(new XAttributeLiteralImpl("concept:name", "__INVALID__"));
             log.getGlobalEventAttributes().add(new XAttributeLiteralImpl("concept:name", "__INVALID__"));
             log.getAttributes().put("source", new XAttributeLiteralImpl("source", "DAlloy"));
@@ -56,9 +52,7 @@ public class AlloyRunner {
 
         addExtensions(plog);
 
-        FileOutputStream fileOS = new FileOutputStream(config.logFilename);
-        new XesXmlSerializer().serialize(plog, fileOS);
-        fileOS.close();
+        LogFiles.write(config.logFilename, plog);
 
         //StatisticsHelper.print();
         //StatisticsHelper.printTime();
@@ -89,7 +83,7 @@ public class AlloyRunner {
         config.maxSameInstances = 2;
         config.intervalSplits = 1;
         config.underscore_spaces = true;
-        Global.underscore_spaces = config.underscore_spaces;
+        RunContext.setDefault(RunContext.of(config));
         int n = Integer.parseInt(traceNum);
         if (isNeg)
             if (isVac)
@@ -118,6 +112,8 @@ public class AlloyRunner {
                 config.alsFilename,
                 LocalDateTime.now(),
                 Duration.ofHours(4),
+                config.threads,
+                config.reuseTranslation,
                 Evaluator::getLogSingleRun);
         
         writeTracesAsLogFile(config, plog);
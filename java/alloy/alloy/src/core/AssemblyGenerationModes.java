@@ -1,6 +1,7 @@
 package core;
 
 import core.helpers.StatisticsHelper;
+import core.helpers.Telemetry;
 import core.interfaces.Function2;
 import core.interfaces.Function3;
 import core.interfaces.GeneratorFunction;
@@ -10,10 +11,19 @@ import org.deckfour.xes.model.impl.XLogImpl;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 // some options (e.g. fair trace length distribution) require to run generator multiple times
 // this class controls this process (of running actual generator) and to assemble log from one or many generation iterations
 public class AssemblyGenerationModes {
+    // how many solutions per requested trace are inspected before missing lengths are generated separately
+    private static final int sessionBudgetFactor = 10;
 
     public static XLog getLog(int minTraceLength,
                               int maxTraceLength,
@@ -32,9 +42,57 @@ public class AssemblyGenerationModes {
                               GeneratorFunction getLogSingleRun)
             throws Exception {
 
+        return getLog(minTraceLength, maxTraceLength,
+                numberOfPositiveTracesWithoutVacuity, numberOfPositiveTracesWithVacuity,
+                numberOfNegativeTracesWithoutVacuity, numberOfNegativeTracesWithVacuity,
+                shuffleConstraintsIterations, evenLengthsDistribution, maxSameInstances, intervalSplits,
+                declare, alsFilename, start, duration, 1, false, getLogSingleRun);
+    }
+
+    public static XLog getLog(int minTraceLength,
+                              int maxTraceLength,
+                              int numberOfPositiveTracesWithoutVacuity,
+                              int numberOfPositiveTracesWithVacuity,
+                              int numberOfNegativeTracesWithoutVacuity,
+                              int numberOfNegativeTracesWithVacuity,
+                              int shuffleConstraintsIterations,
+                              boolean evenLengthsDistribution,
+                              int maxSameInstances,
+                              int intervalSplits,
+                              String declare,
+                              String alsFilename,
+                              LocalDateTime start,
+                              Duration duration,
+                              int threads, // number of generator runs executed simultaneously; 1 means sequential generation
+                              boolean reuseTranslation, // with evenLengthsDistribution: fill all lengths from one translated problem (see GenerationSession). ignored when threads > 1 or shuffle is used
+                              GeneratorFunction getLogSingleRun)
+            throws Exception {
+
+        if (threads > 1)
+            return getLogParallel(minTraceLength, maxTraceLength,
+                    numberOfPositiveTracesWithoutVacuity, numberOfPositiveTracesWithVacuity,
+                    numberOfNegativeTracesWithoutVacuity, numberOfNegativeTracesWithVacuity,
+                    shuffleConstraintsIterations, evenLengthsDistribution, maxSameInstances, intervalSplits,
+                    declare, alsFilename, start, duration, threads, getLogSingleRun);
+
         Function3<Boolean, Boolean, Integer, XLog> getLogNow;
 
-        if (evenLengthsDistribution)
+        if (evenLengthsDistribution && reuseTranslation && shuffleConstraintsIterations == 0)
+            getLogNow =
+                    (vacuity2, negative, nTraces) -> getLogEvenTraceLengthDistributionFromSession(
+                            minTraceLength,
+                            maxTraceLength,
+                            nTraces,
+                            maxSameInstances,
+                            declare,
+                            alsFilename,
+                            intervalSplits,
+                            vacuity2,
+                            negative,
+                            start,
+                            duration,
+                            getLogSingleRun);
+        else if (evenLengthsDistribution)
             getLogNow =
                     (vacuity2, negative, nTraces) -> getLogEvenTraceLengthDistribution(
                             minTraceLength,
@@ -102,6 +160,74 @@ public class AssemblyGenerationModes {
         return log;
     }
 
+    /*
+     * one translation for [min..max] is enumerated and its traces are sorted by length.
+     * a length which is still short when the budget is spent is generated again by one per-length run,
+     * which replaces its bucket: that run does not know the traces of the session, so mixing both could repeat a trace.
+     * if the session is exhausted, every trace of every length has been seen and short buckets are kept as they are
+     */
+    public static XLog getLogEvenTraceLengthDistributionFromSession(int minTraceLength,
+                                                                    int maxTraceLength,
+                                                                    int numberOfTraces,
+                                                                    int maxSameInstances,
+                                                                    String declare,
+                                                                    String alsFilename,
+                                                                    int intervalSplits,
+                                                                    boolean vacuity,
+                                                                    boolean negative,
+                                                                    LocalDateTime start,
+                                                                    Duration duration,
+                                                                    GeneratorFunction getLogSingleRun)
+            throws Exception {
+        int n = numberOfTraces / (maxTraceLength - minTraceLength + 1);
+        if (n == 0)
+            return createEmptyLog();
+
+        GenerationSession session = new GenerationSession(minTraceLength, maxTraceLength, maxSameInstances, declare, alsFilename,
+                intervalSplits, vacuity, negative, false, start, duration, null);
+        Map<Integer, XLog> buckets = session.nextByLength(minTraceLength, maxTraceLength, n,
+                n * (maxTraceLength - minTraceLength + 1) * sessionBudgetFactor);
+        boolean exhausted = !session.hasNext();
+        Global.log.accept("\n" + session.getDiscarded() + " solutions of lengths already complete were discarded");
+
+        XLog log = createEmptyLog();
+        addLengthBucket(log, buckets.get(maxTraceLength), maxTraceLength, n, exhausted, maxSameInstances, declare, alsFilename,
+                intervalSplits, vacuity, negative, start, duration, getLogSingleRun);
+        StatisticsHelper.time.add(System.nanoTime());
+        for (int i = minTraceLength; i < maxTraceLength; ++i)
+            addLengthBucket(log, buckets.get(i), i, n, exhausted, maxSameInstances, declare, alsFilename,
+                    intervalSplits, vacuity, negative, start, duration, getLogSingleRun);
+
+        return log;
+    }
+
+    private static void addLengthBucket(XLog log,
+                                        XLog bucket,
+                                        int length,
+                                        int n,
+                                        boolean exhausted,
+                                        int maxSameInstances,
+                                        String declare,
+                                        String alsFilename,
+                                        int intervalSplits,
+                                        boolean vacuity,
+                                        boolean negative,
+                                        LocalDateTime start,
+                                        Duration duration,
+                                        GeneratorFunction getLogSingleRun)
+            throws Exception {
+        if (bucket.size() >= n || exhausted) {
+            log.addAll(bucket);
+            return;
+        }
+
+        Global.log.accept("\ngeneration for length " + length + " (" + (n - bucket.size()) + " traces missing, " +
+                bucket.size() + " session traces replaced)");
+        Telemetry.count("discarded_solutions", bucket.size());
+        log.addAll(getLogSingleRun.invoke(length, length, n, maxSameInstances, declare, alsFilename,
+                intervalSplits, vacuity, negative, false, start, duration, null));
+    }
+
     public static XLog getLogFairConstraintsPriority(
             int numberOfTraces,
             int shuffleConstraintsIterations,
@@ -125,6 +251,106 @@ public class AssemblyGenerationModes {
         return log;
     }
 
+    /*
+     * every (vacuity, negative, length, shuffle step) combination is an independent generator run.
+     * runs are submitted to a fixed pool of 'threads' workers and their logs are merged
+     * in the same order as the sequential mode would produce them
+     */
+    private static XLog getLogParallel(int minTraceLength,
+                                       int maxTraceLength,
+                                       int numberOfPositiveTracesWithoutVacuity,
+                                       int numberOfPositiveTracesWithVacuity,
+                                       int numberOfNegativeTracesWithoutVacuity,
+                                       int numberOfNegativeTracesWithVacuity,
+                                       int shuffleConstraintsIterations,
+                                       boolean evenLengthsDistribution,
+                                       int maxSameInstances,
+                                       int intervalSplits,
+                                       String declare,
+                                       String alsFilename,
+                                       LocalDateTime start,
+                                       Duration duration,
+                                       int threads,
+                                       GeneratorFunction getLogSingleRun)
+            throws Exception {
+
+        List<Callable<XLog>> batches = new ArrayList<>();
+        int[] amounts = {
+                numberOfPositiveTracesWithoutVacuity,
+                numberOfPositiveTracesWithVacuity,
+                numberOfNegativeTracesWithoutVacuity,
+                numberOfNegativeTracesWithVacuity};
+
+        for (int k = 0; k < amounts.length; ++k) {
+            boolean vacuity = k % 2 == 1;
+            boolean negative = k >= 2;
+
+            if (evenLengthsDistribution) {
+                int n = amounts[k] / (maxTraceLength - minTraceLength + 1);
+                addFairConstraintsPriorityBatches(batches, maxTraceLength, maxTraceLength, n, shuffleConstraintsIterations,
+                        vacuity, negative, maxSameInstances, intervalSplits, declare, alsFilename, start, duration, getLogSingleRun);
+                for (int i = minTraceLength; i < maxTraceLength; ++i)
+                    addFairConstraintsPriorityBatches(batches, i, i, n, shuffleConstraintsIterations,
+                            vacuity, negative, maxSameInstances, intervalSplits, declare, alsFilename, start, duration, getLogSingleRun);
+            } else {
+                addFairConstraintsPriorityBatches(batches, minTraceLength, maxTraceLength, amounts[k], shuffleConstraintsIterations,
+                        vacuity, negative, maxSameInstances, intervalSplits, declare, alsFilename, start, duration, getLogSingleRun);
+            }
+        }
+
+        Global.log.accept("Running " + batches.size() + " generation batches on " + threads + " threads");
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(batches.size(), 1)));
+        try {
+            List<Future<XLog>> results = pool.invokeAll(RunContext.current().wrapAll(batches));
+            XLog log = createEmptyLog();
+            for (Future<XLog> i : results)
+                log.addAll(i.get());
+
+            return log;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void addFairConstraintsPriorityBatches(List<Callable<XLog>> batches,
+                                                          int minTraceLength,
+                                                          int maxTraceLength,
+                                                          int numberOfTraces,
+                                                          int shuffleConstraintsIterations,
+                                                          boolean vacuity,
+                                                          boolean negative,
+                                                          int maxSameInstances,
+                                                          int intervalSplits,
+                                                          String declare,
+                                                          String alsFilename,
+                                                          LocalDateTime start,
+                                                          Duration duration,
+                                                          GeneratorFunction getLogSingleRun) {
+        if (numberOfTraces == 0)
+            return;
+
+        int n = numberOfTraces;
+        if (shuffleConstraintsIterations > 0)
+            n /= shuffleConstraintsIterations;
+
+        int amount = n;
+        for (int i = 0; i < Math.max(shuffleConstraintsIterations, 1); ++i)
+            batches.add(() -> getLogSingleRun.invoke(
+                    minTraceLength,
+                    maxTraceLength,
+                    amount,
+                    maxSameInstances,
+                    declare,
+                    alsFilename,
+                    intervalSplits,
+                    vacuity,
+                    negative,
+                    shuffleConstraintsIterations > 0,
+                    start,
+                    duration,
+                    null));
+    }
+
     private static XLog createEmptyLog() {
         return new XLogImpl(new XAttributeMapImpl());
     }
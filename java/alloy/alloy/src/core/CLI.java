@@ -11,6 +11,38 @@ public class CLI {
     public static AlloyRunConfiguration getConfigFromArgs(String[] args) {
         AlloyRunConfiguration config = new AlloyRunConfiguration();
 
+        if (args.length > 0 && args[0].equals("-server")) {
+            config.mode = ExecutionMode.SERVER;
+            for (int i = 1; i < args.length; ++i) {
+                if (args[i].equals("-port"))
+                    config.serverPort = Integer.parseInt(getArg(args, ++i, "port"));
+                else if (args[i].equals("-workers"))
+                    config.serverWorkers = Integer.parseInt(getArg(args, ++i, "workers"));
+                else if (args[i].equals("-queue"))
+                    config.serverQueue = Integer.parseInt(getArg(args, ++i, "queue"));
+                else if (args[i].equals("-cache"))
+                    config.cacheModels = true;
+                else if (args[i].equals("-solver"))
+                    config.solver = AlloyRunConfiguration.Solver.valueOf(getArg(args, ++i, "solver").toUpperCase());
+                else throw new IllegalArgumentException("Unknown argument '" + args[i] + "'");
+            }
+
+            return config;
+        }
+
+        if (args.length > 2 && args[0].equals("-convert")) {
+            config.mode = ExecutionMode.CONVERSION;
+            config.logFilename = args[1];
+            config.convertFilename = args[2];
+            for (int i = 3; i < args.length; ++i) {
+                if (args[i].equals("-threads"))
+                    config.threads = Integer.parseInt(getArg(args, ++i, "threads"));
+                else throw new IllegalArgumentException("Unknown argument '" + args[i] + "'");
+            }
+
+            return config;
+        }
+
         if (args.length > 4) {
             config.minLength = Integer.parseInt(args[0]);
             config.maxLength = Integer.parseInt(args[1]);
@@ -33,6 +65,28 @@ public class CLI {
                     config.shuffleStatementsIterations = Integer.parseInt(getArg(args, ++i, "shuffle"));
                 else if (args[i].equals("-is"))
                     config.intervalSplits = Integer.parseInt(getArg(args, ++i, "is"));
+                else if (args[i].equals("-stream"))
+                    config.streamLog = true;
+                else if (args[i].equals("-gzip"))
+                    config.gzipLog = true;
+                else if (args[i].equals("-mapped"))
+                    config.mappedLog = true;
+                else if (args[i].equals("-incremental"))
+                    config.reuseTranslation = true;
+                else if (args[i].equals("-cache"))
+                    config.cacheModels = true;
+                else if (args[i].equals("-threads"))
+                    config.threads = Integer.parseInt(getArg(args, ++i, "threads"));
+                else if (args[i].equals("-solver"))
+                    config.solver = AlloyRunConfiguration.Solver.valueOf(getArg(args, ++i, "solver").toUpperCase());
+                else if (args[i].equals("-backend"))
+                    config.conformanceBackend = AlloyRunConfiguration.ConformanceBackend.valueOf(getArg(args, ++i, "backend").toUpperCase());
+                else if (args[i].equals("-report"))
+                    config.reportFilename = getArg(args, ++i, "report");
+                else if (args[i].equals("-metrics_port"))
+                    config.metricsPort = Integer.parseInt(getArg(args, ++i, "metrics_port"));
+                else if (args[i].equals("-compare_solvers"))
+                    config.mode = ExecutionMode.SOLVER_COMPARISON;
                 else if (args[i].equals("-msi"))
                     config.maxSameInstances = Integer.parseInt(getArg(args, ++i, "msi"));
                 else if (args[i].equals("-smv"))
@@ -45,6 +99,14 @@ public class CLI {
                     config.mode = ExecutionMode.COMPLIANCE_CHECK;
                 else if (args[i].equals("-query"))
                     config.mode = ExecutionMode.QUERY;
+                else if (args[i].equals("-support"))
+                    config.querySupport = Double.parseDouble(getArg(args, ++i, "support"));
+                else if (args[i].equals("-vacuous_support"))
+                    config.queryVacuousSupport = Double.parseDouble(getArg(args, ++i, "vacuous_support"));
+                else if (args[i].equals("-query_limit"))
+                    config.querySolutionLimit = Integer.parseInt(getArg(args, ++i, "query_limit"));
+                else if (args[i].equals("-query_time"))
+                    config.queryTimeLimit = Long.parseLong(getArg(args, ++i, "query_time"));
                 else if (args[i].equals("-validatefn")) {
                     config.function = getArg(args, ++i, "validatefn");
                     config.mode = ExecutionMode.FUNCTION_VALIDATION;
@@ -67,14 +129,19 @@ public class CLI {
             return config;
         } else {
             System.out.println("\nusage: java -jar AlloyToLog.jar minLength maxLength NTraces input output " +
-                    "[-vacuity] [-negative] [-eld] [-shuffle N] [-msi N]\n\n" +
-                    "example use: java -jar AlloyToLog.jar 5 15 1000 model.decl log.xes -eld -shuffle 2\n\n\n" +
+                    "[-vacuity] [-negative] [-eld] [-shuffle N] [-msi N] [-threads N] [-incremental] [-stream] [-gzip] [-mapped] [-solver NAME] [-cache] [-backend NAME] [-report FILE] [-metrics_port N] [-support X] [-vacuous_support X] [-query_limit N] [-query_time MS]\n\n" +
+                    "example use: java -jar AlloyToLog.jar 5 15 1000 model.decl log.xes -eld -shuffle 2\n\n" +
+                    "resident mode: java -jar AlloyToLog.jar -server [-port N] [-workers N] [-queue N] [-cache] [-solver NAME]\n" +
+                    "\tPOST /run with the arguments above (one per line) as body, POST /monitor?model=FILE&case=ID with an event, " +
+                    "GET /status, POST /shutdown; localhost only\n\n" +
+                    "log conversion: java -jar AlloyToLog.jar -convert input output [-threads N]\n" +
+                    "\tformats by file names: .xesb - compact binary log, otherwise xes; .gz - compressed\n\n\n" +
                     "\targuments:" +
                     "minLength - integer number, minimal length of trace\n\n" +
                     "maxLength - integer number, maximal length of trace\n\n" +
                     "NTraces - integer number, minimal length of trace\n\n" +
                     "input - name of input file (model); relative or absolute location\n\n" +
-                    "output - name of output file (log)\n\n" +
+                    "output - name of output file (log); .xesb for compact binary log\n\n" +
                     "\toptional parameters:\n\n" +
                     "-vacuity - all constraints in the model will be activated at least once for each trace\n\n" +
                     "-negative - all trace will have at least one constraint violated\n\n" +
@@ -84,7 +151,33 @@ public class CLI {
                     "constraints with opposite activation function present in a model. Value more than 1 will " +
                     "make generation process in N stages. 0 - no shuffle\n\n" +
                     "-msi N - max. same instances. Don't use\n\n" +
+                    "-stream - write each trace to the output file as soon as it is generated; memory use stays flat. " +
+                    "With -threads the order of traces in the file is not fixed\n\n" +
+                    "-gzip - compress output log (also enabled when output name ends with .gz)\n\n" +
+                    "-mapped - keep traces in a memory-mapped temporary file instead of the heap, for logs larger than memory; " +
+                    "applies to generation (log is written when complete), -validatelog and -query\n\n" +
+                    "-incremental - with -eld, translate the model once and split enumerated traces by length; " +
+                    "lengths that stay short of traces are generated separately. Not used with -shuffle or -threads\n\n" +
+                    "-threads N - run independent generation steps (trace lengths with -eld, vacuity/negative " +
+                    "classes, shuffle steps) on N threads. Order of traces in the log is the same as with 1 thread. " +
+                    "With -query, traces are queried on N threads\n\n" +
+                    "-cache - keep generated alloy models in memory; repeated generation calls with the same model and " +
+                    "parameters skip encoding, code generation, alloy parsing and kodkod translation, replay solutions already found, " +
+                    "and produce the same traces. Not used with -shuffle\n\n" +
                     "-is N - interval splits count. >=1\n\n" +
+                    "-solver NAME - SAT solver: sat4j (default), minisat, minisat_prover, glucose, lingeling, cryptominisat " +
+                    "or auto (first available native solver). Falls back to sat4j if native library is not found\n\n" +
+                    "-backend NAME - how -validatelog checks traces: alloy (default), native (automata, no SAT solving) " +
+                    "or both (alloy results, differences with native ones are printed)\n\n" +
+                    "-report FILE - write per-phase timings and counters (parse, translation, solve, extraction, " +
+                    "serialization, ...) at the end of the run; prometheus text if FILE ends with .prom, json otherwise\n\n" +
+                    "-metrics_port N - serve the same report on localhost:N (/metrics - prometheus, /report - json) while running\n\n" +
+                    "-support X - with -query, report only states which hold in at least X (0..1) of traces; " +
+                    "states which can no longer reach X are dropped while the log is queried\n\n" +
+                    "-vacuous_support X - with -query, report only states which are vacuous in at least X (0..1) of traces\n\n" +
+                    "-query_limit N - with -query, look at no more than N solutions per trace (default 1000)\n\n" +
+                    "-query_time MS - with -query, spend no more than MS milliseconds on solutions of a trace (default - no limit)\n\n" +
+                    "-compare_solvers - do not generate traces; translate the model once per available solver and print timings\n\n" +
                     "-smv - do not generate traces; save .smv code instead (for NuXMV-based generator)\n\n");
 
             return null;
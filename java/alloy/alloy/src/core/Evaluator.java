@@ -4,57 +4,64 @@ import core.alloy.codegen.AlloyCodeGenerator;
 import core.alloy.codegen.NameEncoder;
 import core.alloy.integration.AlloyComponent;
 import core.alloy.integration.QueryExtractor;
-import core.alloy.serialization.AlloyLogExtractor;
+import core.alloy.integration.SolverProvider;
+import core.conformance.NativeConformanceChecker;
+import core.GenerationSession;
+import core.ModelCache;
+import core.QueryAggregator;
+import core.RunContext;
+import core.VariantIndex;
+import core.server.GenerationServer;
 import core.exceptions.BadSolutionException;
 import core.exceptions.GenerationException;
 import core.helpers.IOHelper;
+import core.helpers.LogFiles;
+import core.helpers.MappedLog;
 import core.helpers.StatisticsHelper;
+import core.helpers.Telemetry;
+import core.helpers.XesExtensions;
+import core.interfaces.LogWriter;
+import core.interfaces.TraceSink;
 import core.models.AlloyRunConfiguration;
 import core.models.query.AggregationState;
 import core.models.query.QueryEvent;
 import core.models.query.QueryState;
 import core.models.query.TraceQueryResults;
-import core.models.serialization.trace.AbstractTraceAttribute;
-import core.models.serialization.trace.EnumTraceAttributeImpl;
-import core.models.serialization.trace.FloatTraceAttributeImpl;
-import core.models.serialization.trace.IntTraceAttributeImpl;
+import com.sun.net.httpserver.HttpServer;
 import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4compiler.ast.Expr;
+import edu.mit.csail.sdg.alloy4compiler.ast.Module;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import org.apache.commons.lang3.tuple.Pair;
-import org.deckfour.xes.extension.XExtensionParser;
-import org.deckfour.xes.in.XesXmlParser;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.deckfour.xes.model.impl.XAttributeMapImpl;
 import org.deckfour.xes.model.impl.XLogImpl;
-import org.deckfour.xes.out.XesXmlSerializer;
 import src.declare.DeclareModel;
 import src.declare.DeclareParser;
 import src.declare.DeclareParserException;
 import src.declare.lang.Activity;
 import src.declare.lang.Statement;
-import src.declare.lang.trace.EnumTraceAttribute;
-import src.declare.lang.trace.FloatTraceAttribute;
-import src.declare.lang.trace.IntTraceAttribute;
 import src.declare.validators.FunctionValidator;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import static core.models.AlloyRunConfiguration.ConformanceBackend;
 import static core.models.AlloyRunConfiguration.ExecutionMode;
 
 public class Evaluator {
 
-    private static int reuse = 1;
-
     private static final boolean testMode = true;
 
     private static AlloyRunConfiguration debugConf() {
@@ -80,36 +87,69 @@ public class Evaluator {
         AlloyRunConfiguration config = resolveConfig(args);
         if (config == null) return;
 
-        if (config.mode == ExecutionMode.GENERATION) {
+        HttpServer metrics = config.metricsPort > 0 ? Telemetry.serve(config.metricsPort) : null;
+        try {
+            run(config);
+        } finally {
+            if (config.reportFilename != null)
+                Telemetry.write(config.reportFilename);
+
+            if (metrics != null)
+                metrics.stop(0);
+        }
+    }
+
+    // one run as configured; used by main and by GenerationServer (in the RunContext of the request)
+    public static void run(AlloyRunConfiguration config) throws Exception {
+        if (config.mode == ExecutionMode.SERVER) {
+            try (GenerationServer server = new GenerationServer(config.serverPort, config.serverWorkers, config.serverQueue)) {
+                server.start();
+                server.awaitShutdown();
+            }
+
+        } else if (config.mode == ExecutionMode.GENERATION) {
             try {
                 long start = System.nanoTime();
                 StatisticsHelper.time.add(start);
                 String declare = GetDeclare(config.modelFilename);
 
-                XLog plog = core.AssemblyGenerationModes.getLog(
-                        config.minLength,
-                        config.maxLength,
-                        config.nPositiveTraces,
-                        config.nVacuousTraces,
-                        config.nNegativeTraces,
-                        config.nNegativeVacuousTraces,
-                        config.shuffleStatementsIterations,
-                        config.evenLengthsDistribution,
-                        config.maxSameInstances,
-                        config.intervalSplits,
-                        declare,
-                        config.alsFilename,
-                        LocalDateTime.now(),
-                        Duration.ofHours(4),
-                        Evaluator::getLogSingleRun);
-
-                writeTracesAsLogFile(config, plog);
+                if (config.streamLog) {
+                    generateLogStreaming(config, declare);
+                } else if (config.mappedLog) {
+                    generateLogMapped(config, declare);
+                } else {
+                    XLog plog = core.AssemblyGenerationModes.getLog(
+                            config.minLength,
+                            config.maxLength,
+                            config.nPositiveTraces,
+                            config.nVacuousTraces,
+                            config.nNegativeTraces,
+                            config.nNegativeVacuousTraces,
+                            config.shuffleStatementsIterations,
+                            config.evenLengthsDistribution,
+                            config.maxSameInstances,
+                            config.intervalSplits,
+                            declare,
+                            config.alsFilename,
+                            LocalDateTime.now(),
+                            Duration.ofHours(4),
+                            config.threads,
+                            config.reuseTranslation,
+                            Evaluator::getLogSingleRun);
+
+                    writeTracesAsLogFile(config, plog);
+                }
 
                 long end = System.nanoTime();
                 core.Global.log.accept("total time (ms): " + ((end - start) / 1_000_000));
 
             } catch (Throwable e) {
                 e.printStackTrace();
+                if (config.throwErrors) {
+                    if (e instanceof Error)
+                        throw (Error) e;
+                    throw (Exception) e;
+                }
             }
 
             if (config.waitInputBeforeExit) {
@@ -120,22 +160,22 @@ public class Evaluator {
         } else if (config.mode == ExecutionMode.FUNCTION_VALIDATION) {
             core.Global.log.accept(FunctionValidator.validate(config.function));
         } else if (config.mode == ExecutionMode.COMPLIANCE_CHECK) {
-            XLog log = readTracesFromLogFile(config.logFilename);
             String declare = GetDeclare(config.modelFilename);
 
-            List<Statement>[] results = new List[log.size()];
-            int i = 0;
-            for (XTrace trace : log) {
-                results[i] = Evaluator.checkCompliance(
-                        config.maxLength,
-                        declare,
-                        config.alsFilename,
-                        false,
-                        trace);
-                ++i;
-            }
+            List<List<Statement>> results;
+            if (RunContext.current().conformanceBackend == ConformanceBackend.NATIVE)
+                results = checkComplianceNative(declare, config.logFilename);  // traces are checked while the log is read
+            else
+                try (MappedLog store = createStore(config)) {
+                    results = Evaluator.checkCompliance(
+                            config.maxLength,
+                            declare,
+                            config.alsFilename,
+                            false,
+                            readTracesFromLogFile(config.logFilename, store));
+                }
 
-            i = 0;
+            int i = 0;
             core.Global.log.accept("\n------------------");
             for (List<Statement> violations : results) {
                 ++i;
@@ -150,13 +190,19 @@ public class Evaluator {
 
 
         } else if (config.mode == ExecutionMode.QUERY) {
-            XLog log = readTracesFromLogFile(config.logFilename);
             String declare = GetDeclare(config.modelFilename);
 
-            List<TraceQueryResults> allStates = queryLog(declare, config.alsFilename, false, log);
-            Map<QueryState, AggregationState> aggregatedData = aggregate(allStates, 0, 0);
+            QueryAggregator aggregator;
+            try (MappedLog store = createStore(config)) {
+                XLog log = readTracesFromLogFile(config.logFilename, store);
+                aggregator = new QueryAggregator(log.size(), config.querySupport, config.queryVacuousSupport);
+                queryLog(declare, config.alsFilename, false, log, config.threads,
+                        config.querySolutionLimit, config.queryTimeLimit, aggregator);
+            }
+
+            Map<QueryState, AggregationState> aggregatedData = aggregator.getResults();
 
-            double traceCount = allStates.size();
+            double traceCount = aggregator.getTraceCount();
             core.Global.log.accept("Found: " + aggregatedData.size());
             StringBuilder out = new StringBuilder();
             for (Map.Entry<QueryState, AggregationState> state : aggregatedData.entrySet()) {
@@ -168,36 +214,20 @@ public class Evaluator {
 
             core.Global.log.accept(out.toString());
             Files.write(Paths.get("out.txt"), out.toString().getBytes());
+        } else if (config.mode == ExecutionMode.CONVERSION) {
+            Global.log.accept("Converting " + config.logFilename + " to " + config.convertFilename);
+            int traces = LogFiles.convert(config.logFilename, config.convertFilename, config.threads);
+            Global.log.accept(traces + " traces converted");
+        } else if (config.mode == ExecutionMode.SOLVER_COMPARISON) {
+            String declare = GetDeclare(config.modelFilename);
+            compareSolvers(config.minLength, config.maxLength, config.maxSameInstances, declare, config.intervalSplits);
+
         } else {
             Global.log.accept("Unknown execution mode");
         }
     }
 
-    private static Map<QueryState, AggregationState> aggregate(List<TraceQueryResults> allStates, double threshold, double vacuousThreshold) {
-        Map<QueryState, AggregationState> a = new HashMap<>();
-        for (TraceQueryResults traceState : allStates) {
-            for (QueryState state : traceState.getStates()) {
-                a.computeIfAbsent(state, i -> new AggregationState());
-                AggregationState current = a.get(state);
-                ++current.count;
-                current.vacuousCount += state.getTemplateValuesMap().values().stream().anyMatch(QueryEvent::isVacuous) ? 1 : 0;
-            }
-        }
-
-        double count = allStates.size();
-        Set<QueryState> removeQ = new HashSet<>();
-        for (Map.Entry<QueryState, AggregationState> entry : a.entrySet()) {
-            if (entry.getValue().count / count < threshold || entry.getValue().vacuousCount / count < vacuousThreshold) {
-                removeQ.add(entry.getKey());
-            }
-        }
-
-        removeQ.forEach(a::remove);
-
-        return a;
-    }
-
-    private static void writeTracesAsLogFile(Al0loyRunConfiguration config, XLog plog) throws IOException {
+    private static void writeTracesAsLogFile(AlloyRunConfiguration config, XLog plog) throws IOException {
         for (int i = 0; i < plog.size(); ++i)
             plog.get(i).getAttributes().put("concept:name", new XAttributeLiteralImpl("concept:name", "Case No. " + (i + 1)));
 
@@ -205,21 +235,99 @@ public class Evaluator {
 
         Global.log.accept("Writing XES for: " + config.logFilename);
         Global.log.accept(plog.size() + "traces generated");
-        FileOutputStream fileOS = new FileOutputStream(config.logFilename);
-        new XesXmlSerializer().serialize(plog, fileOS);
-        fileOS.close();
+        if (LogFiles.isBinary(config.logFilename)) {
+            LogFiles.write(config.logFilename, plog);  // binary writer records its own telemetry
+        } else {
+            long start = Telemetry.start();
+            LogFiles.write(config.logFilename, plog);
+            Telemetry.stop("serialization", start);
+            Telemetry.count("traces", plog.size());
+        }
 
         StatisticsHelper.print();
         //StatisticsHelper.printTime();
         Global.log.accept("SUCCESS");
     }
 
-    private static XLog readTracesFromLogFile(String filename) throws Exception {
+    // traces are written to the output file as soon as they are extracted from a solution
+    private static void generateLogStreaming(AlloyRunConfiguration config, String declare) throws Exception {
+        XLog header = new XLogImpl(new XAttributeMapImpl());
+        addExtensions(header);
+
+        Global.log.accept("Streaming XES to: " + config.logFilename);
+        try (LogWriter writer = LogFiles.openWriter(config.logFilename, header, config.gzipLog || config.logFilename.endsWith(".gz"))) {
+            generate(config, declare, writer);
+            Global.log.accept(writer.getCount() + " traces generated");
+        }
+
+        StatisticsHelper.print();
+        Global.log.accept("SUCCESS");
+    }
+
+    // traces are kept in a memory-mapped swap file (see MappedLog) and written when generation is complete
+    private static void generateLogMapped(AlloyRunConfiguration config, String declare) throws Exception {
+        try (MappedLog store = MappedLog.create()) {
+            int[] count = {0};
+            generate(config, declare, trace -> {
+                // stored traces are read-only, so they are named before they are appended
+                synchronized (store) {
+                    trace.getAttributes().put("concept:name", new XAttributeLiteralImpl("concept:name", "Case No. " + ++count[0]));
+                    store.append(trace);
+                }
+            });
+
+            writeTracesAsLogFile(config, store.asLog(new XLogImpl(new XAttributeMapImpl())));
+        }
+    }
+
+    private static void generate(AlloyRunConfiguration config, String declare, TraceSink sink) throws Exception {
+        XLog rest = core.AssemblyGenerationModes.getLog(
+                config.minLength,
+                config.maxLength,
+                config.nPositiveTraces,
+                config.nVacuousTraces,
+                config.nNegativeTraces,
+                config.nNegativeVacuousTraces,
+                config.shuffleStatementsIterations,
+                config.evenLengthsDistribution,
+                config.maxSameInstances,
+                config.intervalSplits,
+                declare,
+                config.alsFilename,
+                LocalDateTime.now(),
+                Duration.ofHours(4),
+                config.threads,
+                config.reuseTranslation,
+                (minTraceLength, maxTraceLength, numberOfTraces, maxSameInstances, declare2, alsFilename,
+                 intervalSplits, vacuity, negativeTraces, shuffleConstraints, start, duration, trace) -> {
+                    getLogSingleRun(minTraceLength, maxTraceLength, numberOfTraces, maxSameInstances, declare2, alsFilename,
+                            intervalSplits, vacuity, negativeTraces, shuffleConstraints, start, duration, trace, sink);
+                    return new XLogImpl(new XAttributeMapImpl());
+                });
+
+        // modes which assemble traces in memory (e.g. -incremental length buckets) return them here
+        for (XTrace trace : rest)
+            sink.accept(trace);
+    }
+
+    // -mapped keeps read traces in a swap file owned by the caller; without it traces stay on the heap (null)
+    private static MappedLog createStore(AlloyRunConfiguration config) throws IOException {
+        return config.mappedLog ? MappedLog.create() : null;
+    }
+
+    // traces are appended to store, if given; the returned log is valid until the store is closed
+    private static XLog readTracesFromLogFile(String filename, MappedLog store) throws Exception {
         Global.log.accept("Reading XES from " + filename);
-        FileInputStream fileIS = new FileInputStream(filename);
-        List<XLog> log = new XesXmlParser().parse(fileIS);
-        fileIS.close();
-        return log.get(0);
+        long start = Telemetry.start();
+        XLog log;
+        if (store != null) {
+            log = store.asLog(LogFiles.read(filename, Runtime.getRuntime().availableProcessors(), store));
+        } else {
+            log = LogFiles.read(filename, Runtime.getRuntime().availableProcessors());
+        }
+
+        Telemetry.stop("xes_read", start);
+        return log;
     }
 
     private static AlloyRunConfiguration resolveConfig(String[] args) {
@@ -232,20 +340,16 @@ public class Evaluator {
         if (config == null)
             return null;
 
-        Global.underscore_spaces = config.underscore_spaces;
+        RunContext.setDefault(RunContext.of(config));
         return config;
     }
 
     private static void addExtensions(XLog log) {
-        if (Global.noExtensions)
+        if (RunContext.current().noExtensions)
             return;
 
         try {
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/lifecycle.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/org.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/time.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/concept.xesext")));
-            log.getExtensions().add(XExtensionParser.instance().parse(new URI("http://www.xes-standard.org/semantic.xesext")));
+            log.getExtensions().addAll(XesExtensions.getStandard());
             log.getGlobalTraceAttributes().add(new XAttributeLiteralImpl("concept:name", "__INVALID__"));
             log.getGlobalEventAttributes().add(new XAttributeLiteralImpl("concept:name", "__INVALID__"));
             log.getAttributes().put("source", new XAttributeLiteralImpl("source", "DAlloy"));
@@ -276,32 +380,86 @@ public class Evaluator {
         if (numberOfTraces == 0)
             return new XLogImpl(null);
 
+        XLog log = new XLogImpl(new XAttributeMapImpl());
+        getLogSingleRun(minTraceLength, maxTraceLength, numberOfTraces, maxSameInstances, declare, alsFilename,
+                intervalSplits, vacuity, negativeTraces, shuffleConstraints, start, duration, trace, log::add);
+        return log;
+    }
+
+    public static void getLogSingleRun(int minTraceLength,
+                                       int maxTraceLength,
+                                       int numberOfTraces,
+                                       int maxSameInstances,
+                                       String declare,
+                                       String alsFilename,
+                                       int intervalSplits,
+                                       boolean vacuity,
+                                       boolean negativeTraces,
+                                       boolean shuffleConstraints,
+                                       LocalDateTime start,
+                                       Duration duration,
+                                       XTrace trace,
+                                       TraceSink sink)
+            throws Err, IOException, DeclareParserException, BadSolutionException, GenerationException {
+
+        if (numberOfTraces == 0)
+            return;
+
         Global.log.accept("Maximum no of traces: " + numberOfTraces);
 
-        int bitwidth = 5;
+        // shuffled or trace-bound problems differ on every call, so only plain generation is cached
+        String key = null;
+        GenerationSession.Problem problem = null;
+        if (RunContext.current().cacheModels && !shuffleConstraints && trace == null) {
+            key = ModelCache.key(declare, minTraceLength, maxTraceLength, maxSameInstances, intervalSplits,
+                    vacuity, negativeTraces, RunContext.current().encodeNames, RunContext.current().solver);
+            problem = ModelCache.getProblem(key);
+        }
 
-        NameEncoder encoder = new NameEncoder();
-        if (Global.encodeNames) {
-        	encoder.createDeclMapping(declare);
+        if (problem == null) {
+            problem = new GenerationSession.Problem(minTraceLength, maxTraceLength, maxSameInstances, declare, alsFilename,
+                    intervalSplits, vacuity, negativeTraces, shuffleConstraints, trace);
+            if (key != null)
+                ModelCache.putProblem(key, problem);
+        } else {
+            Global.log.accept("Reusing cached model");
+        }
+
+        // a new session per call: enumeration from the first (cached) solution, timestamps from this call's start
+        new GenerationSession(problem, start, duration).next(numberOfTraces, sink);
+    }
+
+    // translates and solves the generation model once with every available solver and prints timings
+    public static void compareSolvers(int minTraceLength,
+                                      int maxTraceLength,
+                                      int maxSameInstances,
+                                      String declare,
+                                      int intervalSplits)
+            throws Err, DeclareParserException, GenerationException {
+
+        int bitwidth = 5;
+        if (RunContext.current().encodeNames) {
+            NameEncoder encoder = new NameEncoder();
+            encoder.createDeclMapping(declare);
             declare = encoder.encodeDeclModel(declare);
         }
-        
-        DeclareModel model = DeclareParser.parse(declare);
-        AlloyCodeGenerator gen = new AlloyCodeGenerator(maxTraceLength, minTraceLength, bitwidth, maxSameInstances, vacuity, shuffleConstraints, true);
-        gen.runLogGeneration(model, negativeTraces, intervalSplits, trace, "log_generation");
 
+        DeclareModel model = DeclareParser.parse(declare);
+        AlloyCodeGenerator gen = new AlloyCodeGenerator(maxTraceLength, minTraceLength, bitwidth, maxSameInstances, false, false, true);
+        gen.runLogGeneration(model, false, intervalSplits, null, "log_generation");
         String alloyCode = gen.getAlloyCode();
-        IOHelper.writeAllText(alsFilename, alloyCode);
-
-        AlloyComponent alloy = new AlloyComponent();
-        Module world = alloy.parse(alsFilename);
-        A4Solution solution = alloy.executeFromFile(maxTraceLength, bitwidth);
 
-        Global.log.accept("Found Solution: " + (solution != null && solution.satisfiable()));
+        StringBuilder report = new StringBuilder("\nsolver; time (ms); satisfiable\n");
+        for (AlloyRunConfiguration.Solver solver : SolverProvider.getAvailable()) {
+            AlloyComponent alloy = new AlloyComponent(solver);
+            alloy.parseFromString(alloyCode);
+            A4Solution solution = alloy.executeFromFile(maxTraceLength, bitwidth);
+            report.append(alloy.getSatSolver()).append("; ")
+                    .append(alloy.getLastExecutionTime() / 1_000_000).append("; ")
+                    .append(solution != null && solution.satisfiable()).append("\n");
+        }
 
-        AlloyLogExtractor ale = new AlloyLogExtractor(world, gen.generateNumericMap(), getTraceAttributesImpl(model),
-                										encoder, start, duration);
-        return ale.extract(solution, numberOfTraces, maxTraceLength, reuse);
+        Global.log.accept(report.toString());
     }
 
     // returns List of violated statements
@@ -312,8 +470,11 @@ public class Evaluator {
                                                  XTrace trace)
             throws Err, IOException, DeclareParserException, GenerationException {
 
+        if (RunContext.current().conformanceBackend == ConformanceBackend.NATIVE)
+            return new NativeConformanceChecker(ModelCache.parse(declare)).check(trace);
+
         int bitwidth = 5;
-        DeclareModel model = DeclareParser.parse(declare);
+        DeclareModel model = ModelCache.parse(declare);
         LogToModel logToModel = new LogToModel();
         Set<String> inferredActivities = logToModel.parseActivities(trace);
         model.getActivities().forEach(i -> inferredActivities.remove(i.getName()));
@@ -324,10 +485,11 @@ public class Evaluator {
         gen.runLogGeneration(model, false, 1, trace, "log_generation");
 
         String alloyCode = gen.getAlloyCode();
-        IOHelper.writeAllText(alsFilename, alloyCode);
+        if (RunContext.current().saveAls)
+            IOHelper.writeAllText(alsFilename, alloyCode);
 
         AlloyComponent alloy = new AlloyComponent();
-        Module world = alloy.parse(alsFilename);
+        Module world = alloy.parseFromString(alloyCode);
         A4Solution solution = alloy.executeFromFile(maxTraceLength, bitwidth);
 
         List<Statement> violations = new ArrayList<>();
@@ -342,42 +504,264 @@ public class Evaluator {
             Global.log.accept("Solution not found");
         }
 
+        if (RunContext.current().conformanceBackend == ConformanceBackend.BOTH)
+            crossValidate(1, violations, new NativeConformanceChecker(ModelCache.parse(declare)).check(trace));
+
         return violations;
     }
 
-    public static List<TraceQueryResults> queryLog(String queryDeclare,
-                                                   String alsFilename,
-                                                   boolean vacuity,
-                                                   XLog log)
-            throws Err, DeclareParserException, GenerationException, IOException {
+    /*
+     * checks every trace of the log; result i holds violated statements of trace i.
+     * traces are grouped by the length of model they need, so constraint part is generated and parsed
+     * once per group. each trace is then solved as an extra fact against parsed module,
+     * and traces giving the same fact (same activities and data intervals) are solved only once
+     */
+    public static List<List<Statement>> checkCompliance(int maxTraceLength,
+                                                        String declare,
+                                                        String alsFilename,
+                                                        boolean vacuity,
+                                                        XLog log)
+            throws Err, IOException, DeclareParserException, GenerationException {
+
+        if (RunContext.current().conformanceBackend == ConformanceBackend.NATIVE)
+            return checkComplianceNative(declare, log);
+
+        List<List<Statement>> results = checkComplianceAlloy(maxTraceLength, declare, alsFilename, vacuity, log);
+        if (RunContext.current().conformanceBackend == ConformanceBackend.BOTH) {
+            List<List<Statement>> nativeResults = checkComplianceNative(declare, log);
+            for (int i = 0; i < results.size(); ++i)
+                crossValidate(i + 1, results.get(i), nativeResults.get(i));
+        }
+
+        return results;
+    }
+
+    private static List<List<Statement>> checkComplianceNative(String declare, XLog log) throws DeclareParserException {
+        NativeConformanceChecker checker = new NativeConformanceChecker(ModelCache.parse(declare));
+        List<List<Statement>> results = new ArrayList<>(log.size());
+        for (XTrace trace : log)
+            results.add(checker.check(trace));
+
+        return results;
+    }
+
+    private static List<List<Statement>> checkComplianceNative(String declare, String logFilename) throws Exception {
+        Global.log.accept("Reading XES from " + logFilename);
+        NativeConformanceChecker checker = new NativeConformanceChecker(ModelCache.parse(declare));
+        List<List<Statement>> results = new ArrayList<>();
+        LogFiles.read(logFilename, Runtime.getRuntime().availableProcessors(), trace -> {
+            try {
+                results.add(checker.check(trace));
+            } catch (DeclareParserException e) {
+                throw new IOException(e);
+            }
+        });
+
+        return results;
+    }
+
+    // alloy result is the reference; differences point to a bug in one of the backends
+    private static void crossValidate(int traceNo, List<Statement> alloyViolations, List<Statement> nativeViolations) {
+        if (new HashSet<>(alloyViolations).equals(new HashSet<>(nativeViolations)))
+            return;
+
+        Global.log.accept("Trace " + traceNo + ": backends disagree. alloy: " +
+                alloyViolations.stream().map(Statement::getCode).collect(Collectors.toList()) + ", native: " +
+                nativeViolations.stream().map(Statement::getCode).collect(Collectors.toList()));
+    }
+
+    private static List<List<Statement>> checkComplianceAlloy(int maxTraceLength,
+                                                              String declare,
+                                                              String alsFilename,
+                                                              boolean vacuity,
+                                                              XLog log)
+            throws Err, IOException, DeclareParserException, GenerationException {
+
+        int bitwidth = 5;
+        DeclareModel model = ModelCache.parse(declare);
+        LogToModel logToModel = new LogToModel();
+        Set<String> inferredActivities = new HashSet<>();
+        for (XTrace trace : log)
+            inferredActivities.addAll(logToModel.parseActivities(trace));
+        model.getActivities().forEach(i -> inferredActivities.remove(i.getName()));
+        inferredActivities.forEach(i -> model.getActivities().add(new Activity(i)));
+
+        // variants are keyed by facts of one generator; each length group solves them with facts of its own
+        AlloyCodeGenerator keys = new AlloyCodeGenerator(maxTraceLength, 0, bitwidth, 1, vacuity, false, false);
+        keys.runLogGeneration(model, false, 1, null, "log_generation");
+        VariantIndex index = VariantIndex.of(log, keys, model);
+        Global.log.accept(log.size() + " traces, " + index.size() + " variants");
+
+        Map<Integer, List<VariantIndex.Variant>> groups = new TreeMap<>();
+        for (VariantIndex.Variant variant : index.getVariants())
+            groups.computeIfAbsent(Math.max(maxTraceLength, variant.getLength()), k -> new ArrayList<>()).add(variant);
+
+        List<List<Statement>> results = new ArrayList<>(Collections.nCopies(log.size(), null));
+        for (Map.Entry<Integer, List<VariantIndex.Variant>> group : groups.entrySet()) {
+            int length = group.getKey();
+            AlloyCodeGenerator gen = new AlloyCodeGenerator(length, 0, bitwidth, 1, vacuity, false, false);
+            gen.runLogGeneration(model, false, 1, null, "log_generation");
+
+            String alloyCode = gen.getAlloyCode();
+            if (RunContext.current().saveAls)
+                IOHelper.writeAllText(alsFilename, alloyCode);
+
+            AlloyComponent alloy = new AlloyComponent();
+            Module world = alloy.parseFromString(alloyCode);
+            List<Pair<Statement, Expr>> constraints = new ArrayList<>();
+            for (Pair<Statement, String> constraint : gen.getAlloyConstraints())
+                constraints.add(Pair.of(constraint.getKey(), world.parseOneExpressionFromString(constraint.getValue())));
+
+            int traces = 0;
+            for (VariantIndex.Variant variant : group.getValue()) {
+                String fact = gen.generateTraceFact(log.get(variant.getRepresentative()), model);
+                A4Solution solution = alloy.executeWithFact(length, bitwidth, fact);
+                List<Statement> violations = getViolations(solution, constraints);
+                for (int i : variant.getTraces())
+                    results.set(i, violations);
+
+                traces += variant.getCount();
+            }
+
+            Global.log.accept("Length " + length + ": " + traces + " traces, " + group.getValue().size() + " solved");
+        }
+
+        return results;
+    }
+
+    private static List<Statement> getViolations(A4Solution solution, List<Pair<Statement, Expr>> constraints) throws Err {
+        List<Statement> violations = new ArrayList<>();
+        if (solution != null && solution.satisfiable()) {
+            for (Pair<Statement, Expr> constraint : constraints) {
+                Object ok = solution.eval(constraint.getValue());
+                if (ok instanceof Boolean && !(Boolean) ok) {
+                    violations.add(constraint.getKey());
+                }
+            }
+        } else {
+            Global.log.accept("Solution not found");
+        }
+
+        return violations;
+    }
+
+    /*
+     * query template is parsed and its parameters encoded once per log, traces are grouped by variant (VariantIndex).
+     * variants are sorted by length and split into chunks solved on a pool of threads; each chunk generates
+     * and parses its own module per trace length and solves one trace of each variant as an extra fact against it.
+     * results (one per variant, with the number of its traces as count) go to the aggregator as soon as
+     * a variant is solved, from worker threads; variants which fail are reported and skipped
+     */
+    public static void queryLog(String queryDeclare,
+                                String alsFilename,
+                                boolean vacuity,
+                                XLog log,
+                                int threads,
+                                int solutionLimit,
+                                long timeLimit,
+                                QueryAggregator aggregator)
+            throws Exception {
 
         LogToModel logToModel = new LogToModel();
         DeclareModel model = logToModel.parse(log);
+        QueryBuider qb = encodeQuery(queryDeclare, model, logToModel.getActivityNameToCode());
 
-        List<TraceQueryResults> allStates = new ArrayList<>();
-        int n = 0;
-        for (XTrace trace : log) {
+        // variants are keyed by facts of one generator; workers solve them with facts of their own
+        int bitwidth = 5;
+        AlloyCodeGenerator keys = generateQueryCode(0, bitwidth, vacuity, null, model, qb);
+        VariantIndex index = new VariantIndex();
+        for (int i = 0; i < log.size(); ++i) {
             try {
-                Global.log.accept("Trace " + ++n + " / " + log.size());
-                TraceQueryResults traceStates = Evaluator.queryTrace(
-                        queryDeclare,
-                        alsFilename,
-                        vacuity,
-                        trace,
-                        model,
-                        logToModel.getActivityNameToCode());
-
-                allStates.add(traceStates);
+                index.add(i, log.get(i), keys, model);
+            } catch (DeclareParserException e) {
+                Global.log.accept("Trace " + (i + 1) + ": " + e.getMessage());
+                aggregator.skip(1);
+            }
+        }
+
+        List<VariantIndex.Variant> variants = index.getVariants();
+        List<Integer> order = new ArrayList<>(variants.size());
+        for (int i = 0; i < variants.size(); ++i)
+            order.add(i);
+
+        order.sort(Comparator.comparingInt(i -> variants.get(i).getLength()));
+
+        threads = Math.max(threads, 1);
+        int chunks = Math.max(Math.min(threads * 4, order.size()), 1);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; ++c) {
+            List<Integer> chunk = order.subList(c * order.size() / chunks, (c + 1) * order.size() / chunks);
+            tasks.add(() -> {
+                queryChunk(chunk, variants, log, model, qb, logToModel.getCodeToName(), alsFilename, vacuity,
+                        solutionLimit, timeLimit, aggregator);
+                return null;
+            });
+        }
+
+        Global.log.accept("Querying " + log.size() + " traces (" + variants.size() + " variants) on " + threads + " threads");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> i : pool.invokeAll(RunContext.current().wrapAll(tasks)))
+                i.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // variants of a chunk come sorted by length, so a module is generated once per length
+    private static void queryChunk(List<Integer> indices,
+                                   List<VariantIndex.Variant> variants,
+                                   XLog log,
+                                   DeclareModel model,
+                                   QueryBuider qb,
+                                   Map<String, String> codeToName,
+                                   String alsFilename,
+                                   boolean vacuity,
+                                   int solutionLimit,
+                                   long timeLimit,
+                                   QueryAggregator aggregator) {
+        int bitwidth = 5;
+        int length = -1;
+        AlloyCodeGenerator gen = null;
+        AlloyComponent alloy = null;
+        QueryExtractor extractor = null;
+        for (int i : indices) {
+            VariantIndex.Variant variant = variants.get(i);
+            try {
+                XTrace trace = log.get(variant.getRepresentative());
+                if (trace.size() != length) {
+                    length = -1;
+                    gen = generateQueryCode(trace.size(), bitwidth, vacuity, null, model, qb);
+                    String alloyCode = gen.getAlloyCode();
+                    if (RunContext.current().saveAls)
+                        IOHelper.writeAllText(alsFilename, alloyCode);
+
+                    alloy = new AlloyComponent();
+                    Module world = alloy.parseFromString(alloyCode);
+                    extractor = new QueryExtractor(world, qb.getParamEncoding(), qb.getDataParams(), gen.getNumericData());
+                    extractor.setLimit(solutionLimit);
+                    extractor.setTimeLimit(timeLimit);
+                    length = trace.size();
+                }
+
+                AlloyComponent module = alloy;
+                int scope = length;
+                Expr fact = alloy.parseFact(gen.generateTraceFact(trace, model));
+                A4Solution solution = alloy.executeWithFact(length, bitwidth, fact);
+                Set<QueryState> qlist = extractor.get(solution,
+                        condition -> module.executeWithFact(scope, bitwidth, fact == null ? condition : fact.and(condition)));
+
+                // decoded before aggregation, states are keys there
+                qlist.stream().flatMap(s -> s.getTemplateValuesMap().values().stream()).forEach(j -> j.decode(codeToName));
+
+                String name = ((XAttributeLiteralImpl) trace.getAttributes().get("concept:name")).getValue();
+                aggregator.accept(new TraceQueryResults(name, qlist, variant.getCount()));
             } catch (Exception e) {
                 Global.log.accept(e.getMessage());
                 e.printStackTrace();
+                aggregator.skip(variant.getCount());
             }
         }
-
-        allStates.stream().flatMap(i -> i.getStates().stream()).flatMap(i -> i.getTemplateValuesMap().values().stream())
-                .forEach(i -> i.decode(logToModel.getCodeToName()));
-
-        return allStates;
     }
 
     public static TraceQueryResults queryTrace(String queryDeclare,
@@ -389,54 +773,54 @@ public class Evaluator {
             throws Err, DeclareParserException, GenerationException, IOException {
 
         int bitwidth = 5;
-        DeclareModel qModel = DeclareParser.parse(queryDeclare);
-        if (!(qModel.getActivities().isEmpty() && qModel.getEnumeratedData().isEmpty() &&
-                qModel.getIntegerData().isEmpty() && qModel.getFloatData().isEmpty())) {
-            Global.log.accept("Warning: Activity and data definitions in query templates will be ignored");
-        }
-
-        QueryBuider qb = new QueryBuider(nameToCode);
-        model.setConstraints(qModel.getConstraints());
-        model.setDataConstraints(qModel.getDataConstraints());
-        qb.extractQueryParams(model.getConstraints());
-        qb.extractQueryParams(model.getDataConstraints());
-
-
-        AlloyCodeGenerator gen = new AlloyCodeGenerator(trace.size(), 0, bitwidth, 0, vacuity, false, true);
-        gen.runLogGeneration(model, false, 1, trace, "log_generation");
-        gen.generateQueryPlaceholder(qb.getParamEncoding(), qb.getDataParams());
-        gen.generateDataBindingForQuerying(model.getActivityToData(), model.getDataToActivity());
+        QueryBuider qb = encodeQuery(queryDeclare, model, nameToCode);
+        AlloyCodeGenerator gen = generateQueryCode(trace.size(), bitwidth, vacuity, trace, model, qb);
 
         String alloyCode = gen.getAlloyCode();
-        IOHelper.writeAllText(alsFilename, alloyCode);
+        if (RunContext.current().saveAls)
+            IOHelper.writeAllText(alsFilename, alloyCode);
 
         AlloyComponent alloy = new AlloyComponent();
-        Module world = alloy.parse(alsFilename);
+        Module world = alloy.parseFromString(alloyCode);
         A4Solution solution = alloy.executeFromFile(trace.size(), bitwidth);
 
-        QueryExtractor extractor = new QueryExtractor();
-        Set<QueryState> qlist = extractor.get(solution, world, qb.getParamEncoding(), qb.getDataParams(), gen.getNumericData(), 1000);
+        QueryExtractor extractor = new QueryExtractor(world, qb.getParamEncoding(), qb.getDataParams(), gen.getNumericData());
+        Set<QueryState> qlist = extractor.get(solution, condition -> alloy.executeWithFact(trace.size(), bitwidth, condition));
 
         String name = ((XAttributeLiteralImpl) trace.getAttributes().get("concept:name")).getValue();
         return new TraceQueryResults(name, qlist);
     }
 
-    private static List<AbstractTraceAttribute> getTraceAttributesImpl(DeclareModel model) {
-        List<AbstractTraceAttribute> attributes = new ArrayList<>(model.getEnumTraceAttributes().size() + model.getIntTraceAttributes().size() + model.getFloatTraceAttributes().size());
-
-        for (EnumTraceAttribute i : model.getEnumTraceAttributes()) {
-            attributes.add(new EnumTraceAttributeImpl(i.getName(), i.getParams()));
-        }
-
-        for (IntTraceAttribute i : model.getIntTraceAttributes()) {
-            attributes.add(new IntTraceAttributeImpl(i.getName(), i.getLow(), i.getHigh()));
+    // puts query template constraints into the log model and encodes its ?parameters
+    private static QueryBuider encodeQuery(String queryDeclare, DeclareModel model, Map<String, String> nameToCode)
+            throws DeclareParserException {
+        DeclareModel qModel = ModelCache.parse(queryDeclare);
+        if (!(qModel.getActivities().isEmpty() && qModel.getEnumeratedData().isEmpty() &&
+                qModel.getIntegerData().isEmpty() && qModel.getFloatData().isEmpty())) {
+            Global.log.accept("Warning: Activity and data definitions in query templates will be ignored");
         }
 
-        for (FloatTraceAttribute i : model.getFloatTraceAttributes()) {
-            attributes.add(new FloatTraceAttributeImpl(i.getName(), i.getLow(), i.getHigh()));
-        }
+        QueryBuider qb = new QueryBuider(nameToCode);
+        model.setConstraints(qModel.getConstraints());
+        model.setDataConstraints(qModel.getDataConstraints());
+        qb.extractQueryParams(model.getConstraints());
+        qb.extractQueryParams(model.getDataConstraints());
+        return qb;
+    }
 
-        return attributes;
+    // trace content is put into the code if given, otherwise it can be solved as a fact (see generateTraceFact)
+    private static AlloyCodeGenerator generateQueryCode(int length,
+                                                        int bitwidth,
+                                                        boolean vacuity,
+                                                        XTrace trace,
+                                                        DeclareModel model,
+                                                        QueryBuider qb)
+            throws DeclareParserException, GenerationException {
+        AlloyCodeGenerator gen = new AlloyCodeGenerator(length, 0, bitwidth, 0, vacuity, false, true);
+        gen.runLogGeneration(model, false, 1, trace, "log_generation");
+        gen.generateQueryPlaceholder(qb.getParamEncoding(), qb.getDataParams());
+        gen.generateDataBindingForQuerying(model.getActivityToData(), model.getDataToActivity());
+        return gen;
     }
 
     private static String GetDeclare(String file) {
@@ -0,0 +1,248 @@
+package core;
+
+import core.alloy.codegen.AlloyCodeGenerator;
+import core.alloy.codegen.NameEncoder;
+import core.alloy.integration.AlloyComponent;
+import core.alloy.serialization.AlloyLogExtractor;
+import core.exceptions.BadSolutionException;
+import core.exceptions.GenerationException;
+import core.helpers.IOHelper;
+import core.helpers.Telemetry;
+import core.interfaces.TraceSink;
+import core.models.intervals.Interval;
+import core.models.serialization.trace.AbstractTraceAttribute;
+import core.models.serialization.trace.EnumTraceAttributeImpl;
+import core.models.serialization.trace.FloatTraceAttributeImpl;
+import core.models.serialization.trace.IntTraceAttributeImpl;
+import declare.DeclareModel;
+import declare.DeclareParser;
+import declare.DeclareParserException;
+import declare.lang.trace.EnumTraceAttribute;
+import declare.lang.trace.FloatTraceAttribute;
+import declare.lang.trace.IntTraceAttribute;
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4compiler.ast.Module;
+import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeMapImpl;
+import org.deckfour.xes.model.impl.XLogImpl;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * keeps one translated alloy problem alive and enumerates its solutions on demand.
+ * every solution returned by A4Solution.next() is blocked in the same solver instance,
+ * so consecutive batches taken from one session never repeat a trace
+ * and do not pay for parsing, code generation and kodkod translation again.
+ * the generated model and its translated first solution (Problem) do not depend on the caller and may be kept
+ * between sessions (ModelCache): every session walks the same chain of solutions from that seed
+ */
+public class GenerationSession {
+    private static final int bitwidth = 5;
+
+    private int maxTraceLength;
+    private AlloyLogExtractor extractor;
+    private Object chain;  // lock of the problem's solution chain
+    private A4Solution solution;
+    private int produced = 0;
+    private int discarded = 0;  // solutions taken by nextByLength but not put into a bucket
+
+    public GenerationSession(int minTraceLength,
+                             int maxTraceLength,
+                             int maxSameInstances,
+                             String declare,
+                             String alsFilename,
+                             int intervalSplits,
+                             boolean vacuity,
+                             boolean negativeTraces,
+                             boolean shuffleConstraints,
+                             LocalDateTime start,
+                             Duration duration,
+                             XTrace trace)
+            throws Err, DeclareParserException, GenerationException {
+
+        this(new Problem(minTraceLength, maxTraceLength, maxSameInstances, declare, alsFilename, intervalSplits,
+                vacuity, negativeTraces, shuffleConstraints, trace), start, duration);
+    }
+
+    /*
+     * enumeration of the problem from its first solution, timestamps from start.
+     * sessions of one problem may run at the same time: they share only the solution chain,
+     * extraction works on copies of the data intervals
+     */
+    public GenerationSession(Problem problem, LocalDateTime start, Duration duration) throws Err {
+        this.maxTraceLength = problem.maxTraceLength;
+        this.chain = problem.chain;
+        this.solution = problem.getSeed();
+
+        Global.log.accept("Found Solution: " + hasNext());
+
+        this.extractor = new AlloyLogExtractor(problem.world, copyIntervals(problem.gen.generateNumericMap()),
+                getTraceAttributesImpl(problem.model), problem.encoder, start, duration);
+    }
+
+    public boolean hasNext() {
+        return solution != null && solution.satisfiable();
+    }
+
+    public XTrace next() throws Err, IOException, BadSolutionException {
+        long time = Telemetry.start();
+        XTrace trace = extractor.extractTrace(solution, maxTraceLength, produced++);
+        time = Telemetry.stop("extraction", time);
+        synchronized (chain) {  // A4Solution.next() solves once and then returns the memoized successor
+            solution = solution.next();
+        }
+
+        Telemetry.stop("enumeration", time);
+        Telemetry.count("solutions", 1);
+        return trace;
+    }
+
+    public XLog next(int nTraces) throws Err, IOException, BadSolutionException {
+        XLog log = createEmptyLog();
+        next(nTraces, log::add);
+        return log;
+    }
+
+    public void next(int nTraces, TraceSink sink) throws Err, IOException, BadSolutionException {
+        Global.log.accept("Serialization...");
+        for (int t = 0; t < nTraces && hasNext(); ++t) {
+            sink.accept(next());
+            if (nTraces % (t + 1) == 0 || t % 100 == 0)
+                System.out.print((nTraces - t) + "... ");
+        }
+
+        System.out.print("\n");
+    }
+
+    /*
+     * enumerates solutions of this (min..max length) problem and sorts traces into buckets by their length
+     * until every bucket holds nPerLength traces, 'budget' solutions are inspected or the problem is exhausted.
+     * buckets may stay incomplete; it is up to the caller to fill them in.
+     * traces which do not fit into a bucket are dropped and counted (getDiscarded, telemetry 'discarded_solutions')
+     */
+    public Map<Integer, XLog> nextByLength(int minTraceLength, int maxTraceLength, int nPerLength, int budget)
+            throws Err, IOException, BadSolutionException {
+
+        Map<Integer, XLog> buckets = new HashMap<>();
+        for (int i = minTraceLength; i <= maxTraceLength; ++i)
+            buckets.put(i, createEmptyLog());
+
+        int missing = nPerLength * (maxTraceLength - minTraceLength + 1);
+        while (missing > 0 && budget-- > 0 && hasNext()) {
+            XTrace trace = next();
+            XLog bucket = buckets.get(trace.size());
+            if (bucket != null && bucket.size() < nPerLength) {
+                bucket.add(trace);
+                --missing;
+            } else {
+                ++discarded;
+                Telemetry.count("discarded_solutions", 1);
+            }
+        }
+
+        return buckets;
+    }
+
+    public int getDiscarded() {
+        return discarded;
+    }
+
+    /*
+     * encoded, generated and parsed alloy model and its translated first solution.
+     * the seed is translated once, on the first session. a kept problem holds every solution any session
+     * has reached from it (A4Solution memoizes next()), so its memory grows with the longest enumeration
+     */
+    public static class Problem {
+        private final Object chain = new Object();
+        private A4Solution seed;
+        private final int maxTraceLength;
+        private final NameEncoder encoder;
+        private final DeclareModel model;
+        private final AlloyCodeGenerator gen;
+        private final AlloyComponent alloy;
+        private final Module world;
+
+        public Problem(int minTraceLength,
+                       int maxTraceLength,
+                       int maxSameInstances,
+                       String declare,
+                       String alsFilename,
+                       int intervalSplits,
+                       boolean vacuity,
+                       boolean negativeTraces,
+                       boolean shuffleConstraints,
+                       XTrace trace)
+                throws Err, DeclareParserException, GenerationException {
+
+            this.maxTraceLength = maxTraceLength;
+
+            long time = Telemetry.start();
+            this.encoder = new NameEncoder();
+            if (RunContext.current().encodeNames) {
+                encoder.createDeclMapping(declare);
+                declare = encoder.encodeDeclModel(declare);
+            }
+
+            time = Telemetry.stop("encode", time);
+            this.model = DeclareParser.parse(declare);
+            time = Telemetry.stop("parse", time);
+            this.gen = new AlloyCodeGenerator(maxTraceLength, minTraceLength, bitwidth, maxSameInstances, vacuity, shuffleConstraints, true);
+            gen.runLogGeneration(model, negativeTraces, intervalSplits, trace, "log_generation");
+            Telemetry.stop("codegen", time);
+
+            String alloyCode = gen.getAlloyCode();
+            if (RunContext.current().saveAls)
+                IOHelper.writeAllText(alsFilename, alloyCode);
+
+            this.alloy = new AlloyComponent();
+            this.world = alloy.parseFromString(alloyCode);
+        }
+
+        private A4Solution getSeed() throws Err {
+            synchronized (chain) {
+                if (seed == null)
+                    seed = alloy.executeFromFile(maxTraceLength, bitwidth);
+
+                return seed;
+            }
+        }
+    }
+
+    private static Map<String, Interval> copyIntervals(Map<String, Interval> intervals) {
+        Map<String, Interval> copies = new HashMap<>();
+        for (Map.Entry<String, Interval> i : intervals.entrySet())
+            copies.put(i.getKey(), i.getValue().copy());
+
+        return copies;
+    }
+
+    private static List<AbstractTraceAttribute> getTraceAttributesImpl(DeclareModel model) {
+        List<AbstractTraceAttribute> attributes = new ArrayList<>(model.getEnumTraceAttributes().size() + model.getIntTraceAttributes().size() + model.getFloatTraceAttributes().size());
+
+        for (EnumTraceAttribute i : model.getEnumTraceAttributes()) {
+            attributes.add(new EnumTraceAttributeImpl(i.getName(), i.getParams()));
+        }
+
+        for (IntTraceAttribute i : model.getIntTraceAttributes()) {
+            attributes.add(new IntTraceAttributeImpl(i.getName(), i.getLow(), i.getHigh()));
+        }
+
+        for (FloatTraceAttribute i : model.getFloatTraceAttributes()) {
+            attributes.add(new FloatTraceAttributeImpl(i.getName(), i.getLow(), i.getHigh()));
+        }
+
+        return attributes;
+    }
+
+    private static XLog createEmptyLog() {
+        return new XLogImpl(new XAttributeMapImpl());
+    }
+}
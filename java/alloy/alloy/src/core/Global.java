@@ -8,23 +8,11 @@ import java.util.function.Consumer;
  * Created by Vasiliy on 2017-11-03.
  */
 public class Global {
-    public static String samePrefix = "Same";
+    public static final String samePrefix = "Same";
 
-    public static String differentPrefix = "Diff";
-
-    /*
-    when true it work faster,
-    but then 'same' for numbers will prefer numbers
-    from the intervals 'EqualToN' in most cases.
-    not recommended for short logs.
-     */
-    public static boolean singleFirstForSame = false;
-    public static boolean deepNamingCheck = false;  // increase execution time by ~1s. but can show errors
-    public static boolean encodeNames = true;  // set to false only if you want to debug intermediate .als
-    public static boolean noExtensions = false;  // disable xml extensions in .xes file (log attributes)
-    public static boolean dummyActivitiesAllowed = false; // should be false; for debug only
-    public static boolean underscore_spaces = false;
+    public static final String differentPrefix = "Diff";
 
+    // settings of a run are kept in RunContext; the log is shared by all runs of the process
     public static Consumer<String> log = System.out::println;
 
     public static Set<String> getAlloySupportedConstraints() {
@@ -0,0 +1,82 @@
+package core;
+
+import declare.DeclareModel;
+import declare.DeclareParser;
+import declare.DeclareParserException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * content-addressed LRU caches for work that does not depend on the trace being processed:
+ * parsed declare models and generated alloy problems with their translated first solution (GenerationSession.Problem).
+ * only the caller-independent part is kept: every request starts its own session on the cached problem,
+ * so repeated identical requests produce the same traces, stamped from their own start time.
+ * a cached problem also keeps every solution enumerated from it; capacity bounds how many problems are held
+ */
+public class ModelCache {
+    private static int capacity = 16;
+
+    private static final Map<String, DeclareModel> models = createLru();
+    private static final Map<String, GenerationSession.Problem> problems = createLru();
+
+    public static void setCapacity(int capacity) {
+        ModelCache.capacity = capacity;
+    }
+
+    public static void clear() {
+        models.clear();
+        problems.clear();
+    }
+
+    // returns a copy, callers are free to add activities or replace constraints
+    public static DeclareModel parse(String declare) throws DeclareParserException {
+        String key = key(declare);
+        DeclareModel model = models.get(key);
+        if (model == null) {
+            model = DeclareParser.parse(declare);
+            models.put(key, model);
+        }
+
+        return new DeclareModel(model);
+    }
+
+    public static GenerationSession.Problem getProblem(String key) {
+        return problems.get(key);
+    }
+
+    public static void putProblem(String key, GenerationSession.Problem problem) {
+        problems.put(key, problem);
+    }
+
+    public static String key(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object i : parts) {
+                digest.update(String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+                sb.append(String.format("%02x", b));
+
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static <T> Map<String, T> createLru() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+}
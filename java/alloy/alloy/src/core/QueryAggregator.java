@@ -0,0 +1,113 @@
+package core;
+
+import core.models.query.AggregationState;
+import core.models.query.QueryEvent;
+import core.models.query.QueryState;
+import core.models.query.TraceQueryResults;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * support of query states, counted while traces are being queried; results of a trace are not kept.
+ * a state passes if it holds in at least threshold of the queried traces and is vacuous in at least vacuousThreshold.
+ *
+ * states which cannot pass any more are dropped: with r traces remaining and n queried so far,
+ * the best support a state with count c can reach is (c + r) / (n + r). a dropped state never comes back:
+ * if it is seen again, its new count plus remaining traces is still below the bound.
+ * traces which could not be queried are reported by skip, so they only reduce the remaining count
+ */
+public class QueryAggregator {
+    private final Map<QueryState, AggregationState> states = new HashMap<>();
+    private final int expected;
+    private final double threshold;
+    private final double vacuousThreshold;
+    private final int reportInterval;
+
+    private int queried = 0;    // traces with results
+    private int skipped = 0;
+    private int nextReport;
+
+    public QueryAggregator(int expected, double threshold, double vacuousThreshold) {
+        this.expected = expected;
+        this.threshold = threshold;
+        this.vacuousThreshold = vacuousThreshold;
+        this.reportInterval = Math.max(expected / 20, 1);
+        this.nextReport = reportInterval;
+    }
+
+    // states must be decoded, they are used as keys
+    public synchronized void accept(TraceQueryResults results) {
+        int count = results.getCount();
+        queried += count;
+        int remaining = getRemaining();
+        for (QueryState state : results.getStates()) {
+            int vacuous = state.getTemplateValuesMap().values().stream().anyMatch(QueryEvent::isVacuous) ? count : 0;
+            AggregationState current = states.get(state);
+            if (current == null) {
+                if (!canPass(count, vacuous, remaining))
+                    continue;
+
+                current = new AggregationState();
+                states.put(state, current);
+            }
+
+            current.count += count;
+            current.vacuousCount += vacuous;
+        }
+
+        progress();
+    }
+
+    public synchronized void skip(int count) {
+        skipped += count;
+        progress();
+    }
+
+    // states which pass thresholds over all queried traces; final once all traces are accepted or skipped
+    public synchronized Map<QueryState, AggregationState> getResults() {
+        Map<QueryState, AggregationState> passed = new HashMap<>();
+        for (Map.Entry<QueryState, AggregationState> i : states.entrySet())
+            if (canPass(i.getValue().count, i.getValue().vacuousCount, 0))
+                passed.put(i.getKey(), i.getValue());
+
+        return passed;
+    }
+
+    public synchronized int getTraceCount() {
+        return queried;
+    }
+
+    private int getRemaining() {
+        return Math.max(expected - queried - skipped, 0);
+    }
+
+    private boolean canPass(int count, int vacuous, int remaining) {
+        double best = queried + remaining;
+        return best > 0 && (count + remaining) / best >= threshold && (vacuous + remaining) / best >= vacuousThreshold;
+    }
+
+    // drops states which cannot pass any more and reports partial results
+    private void progress() {
+        int done = queried + skipped;
+        if (done < nextReport && done < expected)
+            return;
+
+        while (nextReport <= done)
+            nextReport += reportInterval;
+
+        int remaining = getRemaining();
+        int passing = 0;
+        for (Iterator<AggregationState> i = states.values().iterator(); i.hasNext(); ) {
+            AggregationState state = i.next();
+            if (!canPass(state.count, state.vacuousCount, remaining))
+                i.remove();
+            else if (canPass(state.count, state.vacuousCount, 0))
+                ++passing;
+        }
+
+        Global.log.accept("Query: " + done + " / " + expected + " traces, " + states.size() + " candidates, " +
+                passing + " pass so far");
+    }
+}
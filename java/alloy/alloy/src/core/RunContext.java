@@ -0,0 +1,125 @@
+package core;
+
+import core.models.AlloyRunConfiguration;
+import core.models.AlloyRunConfiguration.ConformanceBackend;
+import core.models.AlloyRunConfiguration.Solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * settings and name counter of one run (generation, parsing, checking or monitoring).
+ * a context is bound to the thread which executes the run, so runs with different settings
+ * can work in parallel threads of one process. threads without bound context use the default one,
+ * which is what the command line tools configure.
+ * tasks given to other threads are wrapped (see wrap), so they see the context of the run that created them
+ */
+public class RunContext {
+    private static volatile RunContext defaultContext = new RunContext();
+    private static final ThreadLocal<RunContext> bound = new ThreadLocal<>();
+
+    /*
+    when true it work faster,
+    but then 'same' for numbers will prefer numbers
+    from the intervals 'EqualToN' in most cases.
+    not recommended for short logs.
+     */
+    public boolean singleFirstForSame = false;
+    public boolean deepNamingCheck = false;  // increase execution time by ~1s. but can show errors
+    public boolean encodeNames = true;  // set to false only if you want to debug intermediate .als
+    public boolean saveAls = false;  // write intermediate .als to disk (alsFilename); for debug only
+    public boolean noExtensions = false;  // disable xml extensions in .xes file (log attributes)
+    public boolean dummyActivitiesAllowed = false; // should be false; for debug only
+    public boolean underscore_spaces = false;
+    public Solver solver = Solver.SAT4J;
+    public ConformanceBackend conformanceBackend = ConformanceBackend.ALLOY;
+    public boolean cacheModels = false;  // keep generated alloy models between calls (see ModelCache)
+
+    // suffix of generated alloy names (intervals, functions, same/different tokens); unique within the run
+    private final AtomicInteger names = new AtomicInteger(99999);
+
+    public static RunContext current() {
+        RunContext context = bound.get();
+        return context != null ? context : defaultContext;
+    }
+
+    public static RunContext getDefault() {
+        return defaultContext;
+    }
+
+    public static void setDefault(RunContext context) {
+        defaultContext = context;
+    }
+
+    public static RunContext of(AlloyRunConfiguration config) {
+        RunContext context = new RunContext();
+        context.underscore_spaces = config.underscore_spaces;
+        context.solver = config.solver;
+        context.cacheModels = config.cacheModels;
+        context.conformanceBackend = config.conformanceBackend;
+        return context;
+    }
+
+    // same settings, own name counter
+    public RunContext copy() {
+        RunContext context = new RunContext();
+        context.singleFirstForSame = singleFirstForSame;
+        context.deepNamingCheck = deepNamingCheck;
+        context.encodeNames = encodeNames;
+        context.saveAls = saveAls;
+        context.noExtensions = noExtensions;
+        context.dummyActivitiesAllowed = dummyActivitiesAllowed;
+        context.underscore_spaces = underscore_spaces;
+        context.solver = solver;
+        context.conformanceBackend = conformanceBackend;
+        context.cacheModels = cacheModels;
+        return context;
+    }
+
+    public int nextNumber() {
+        return names.incrementAndGet();
+    }
+
+    // makes this context current for the calling thread until the scope is closed
+    public Scope bind() {
+        RunContext previous = bound.get();
+        bound.set(this);
+        return () -> {
+            if (previous == null)
+                bound.remove();
+            else
+                bound.set(previous);
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                return task.call();
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> i : tasks)
+            wrapped.add(wrap(i));
+        return wrapped;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
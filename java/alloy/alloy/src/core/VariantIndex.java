@@ -0,0 +1,74 @@
+package core;
+
+import core.alloy.codegen.AlloyCodeGenerator;
+import declare.DeclareModel;
+import declare.DeclareParserException;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * groups traces of a log by variant: same activities with the same data intervals in the same order.
+ * the key is the trace fact (AlloyCodeGenerator.generateTraceFact), i.e. exactly what a solver sees of a trace,
+ * so one representative per variant is solved and its result applies to every trace of the variant.
+ * facts of one generator only are comparable (interval names differ between generators)
+ */
+public class VariantIndex {
+    private final Map<String, Variant> variants = new LinkedHashMap<>();
+
+    // all traces of the log; fails on the first trace which cannot be encoded
+    public static VariantIndex of(XLog log, AlloyCodeGenerator gen, DeclareModel model) throws DeclareParserException {
+        VariantIndex index = new VariantIndex();
+        for (int i = 0; i < log.size(); ++i)
+            index.add(i, log.get(i), gen, model);
+
+        return index;
+    }
+
+    public void add(int traceIndex, XTrace trace, AlloyCodeGenerator gen, DeclareModel model) throws DeclareParserException {
+        String fact = gen.generateTraceFact(trace, model);
+        variants.computeIfAbsent(fact, i -> new Variant(traceIndex, trace.size())).traces.add(traceIndex);
+    }
+
+    // in order of first appearance
+    public List<Variant> getVariants() {
+        return new ArrayList<>(variants.values());
+    }
+
+    public int size() {
+        return variants.size();
+    }
+
+    public static class Variant {
+        private final int representative;
+        private final int length;
+        private final List<Integer> traces = new ArrayList<>();
+
+        Variant(int representative, int length) {
+            this.representative = representative;
+            this.length = length;
+        }
+
+        // index of the first trace of the variant in the log
+        public int getRepresentative() {
+            return representative;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public List<Integer> getTraces() {
+            return Collections.unmodifiableList(traces);
+        }
+
+        public int getCount() {
+            return traces.size();
+        }
+    }
+}
@@ -167,6 +167,24 @@ public class AlloyCodeGenerator {
         alloy.append("\n}\n");
     }
 
+    /*
+     * same trace content as runLogGeneration puts into a fact, as a single expression.
+     * numeric intervals of the last run are used, so call after runLogGeneration
+     */
+    public String generateTraceFact(XTrace trace, DeclareModel model) throws DeclareParserException {
+        if (trace == null || trace.isEmpty())
+            return "";
+
+        StringBuilder code = alloy;
+        try {
+            alloy = new StringBuilder();
+            generateTraceFlow(trace, model);
+            return alloy.toString().trim().replace("\n", " and ");
+        } finally {
+            alloy = code;
+        }
+    }
+
     private void generateTraceFlow(XTrace trace, DeclareModel model) throws DeclareParserException {
         int index = 0;
 
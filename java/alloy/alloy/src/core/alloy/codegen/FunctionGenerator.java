@@ -1,6 +1,7 @@
 package core.alloy.codegen;
 
 import core.Global;
+import core.RunContext;
 import core.exceptions.GenerationException;
 import core.helpers.RandomHelper;
 import core.models.declare.data.NumericDataImpl;
@@ -216,7 +217,7 @@ public class FunctionGenerator {
                 .append(".data&").append(value).append(" and ((one (").append(token).append(" & ").append(args.get(0))
                 .append(".tokens)  and (").append(token).append(" & ").append(args.get(0)).append(".tokens) = (")
                 .append(token).append(" & ").append(args.get(1)).append(".tokens)) ");
-        if (Global.singleFirstForSame)
+        if (RunContext.current().singleFirstForSame)
             alloy.append("or Single[").append(args.get(0)).append(".data&").append(value).append("]");
         alloy.append("))");
 
@@ -248,7 +249,7 @@ public class FunctionGenerator {
         String token = Global.samePrefix + value + RandomHelper.getNext();
         alloy.append("(not ").append(args.get(0)).append(".data&").append(value).append('=').append(args.get(1))
                 .append(".data&").append(value).append(") or ((not ");
-        if (Global.singleFirstForSame)
+        if (RunContext.current().singleFirstForSame)
             alloy.append(" Single[").append(args.get(0)).append(".data&").append(value).append("] and not ");
         alloy.append("(some((").append(token)
                 .append(" & ").append(args.get(1)).append(".tokens)) and one (").append(token).append(" & ")
@@ -2,10 +2,16 @@ package core.alloy.integration;
 
 
 import core.Global;
+import core.RunContext;
+import core.helpers.RandomHelper;
+import core.helpers.Telemetry;
+import core.models.AlloyRunConfiguration.Solver;
 import edu.mit.csail.sdg.alloy4.A4Reporter;
 import edu.mit.csail.sdg.alloy4.Err;
 import edu.mit.csail.sdg.alloy4.ErrorWarning;
+import edu.mit.csail.sdg.alloy4.Util;
 import edu.mit.csail.sdg.alloy4compiler.ast.Command;
+import edu.mit.csail.sdg.alloy4compiler.ast.Expr;
 import edu.mit.csail.sdg.alloy4compiler.ast.Module;
 import edu.mit.csail.sdg.alloy4compiler.ast.Sig;
 import edu.mit.csail.sdg.alloy4compiler.parser.CompUtil;
@@ -14,15 +20,49 @@ import edu.mit.csail.sdg.alloy4compiler.translator.A4Options.SatSolver;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import edu.mit.csail.sdg.alloy4compiler.translator.TranslateAlloyToKodkod;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class AlloyComponent {
     private A4Options config;
     private A4Reporter reporter;
     private Module world;
+    private Solver solver;
+    private long lastExecutionTime;
+    private long translated;    // when kodkod finished translation of the last command; 0 if solve was not reported
+
+    public AlloyComponent() {
+        this(RunContext.current().solver);
+    }
+
+    public AlloyComponent(Solver solver) {
+        this.solver = solver;
+    }
 
     public Module parse(String filename) throws Err {
+        init();
+        return this.world = CompUtil.parseEverything_fromFile(this.reporter, null, filename);
+    }
+
+    /*
+     * parses generated alloy code without writing it to disk.
+     * the code is put into the parser cache under a unique virtual filename,
+     * so concurrent runs never collide on temp.als
+     */
+    public Module parseFromString(String alloyCode) throws Err {
+        init();
+        long start = Telemetry.start();
+        String virtualFilename = Util.canon(RandomHelper.getName() + ".als");
+        Map<String, String> loaded = new HashMap<>();
+        loaded.put(virtualFilename, alloyCode);
+        this.world = CompUtil.parseEverything_fromFile(this.reporter, loaded, virtualFilename);
+        Telemetry.stop("alloy_parse", start);
+        return this.world;
+    }
+
+    private void init() {
         this.config = new A4Options();
-        this.config.solver = SatSolver.SAT4J; // use for windows
-        //this.config.solver = SatSolver.MiniSatJNI; // use for linux
+        this.config.solver = SolverProvider.get(solver);
 
         //Global.log.accept("Chosen solver: " + this.config.solver);
         this.config.skolemDepth = 4;
@@ -32,21 +72,76 @@ public class AlloyComponent {
                 System.out.print("Relevance Warning:\n" + msg.toString().trim() + "\n\n");
                 System.out.flush();
             }
-        };
 
-        return this.world = CompUtil.parseEverything_fromFile(this.reporter, null, filename);
+            // called by kodkod between translation to cnf and sat solving
+            public void solve(int primaryVars, int totalVars, int clauses) {
+                translated = System.nanoTime();
+                Telemetry.count("kodkod_primary_variables", primaryVars);
+                Telemetry.count("kodkod_variables", totalVars);
+                Telemetry.count("kodkod_clauses", clauses);
+            }
+        };
     }
 
     public A4Solution executeFromFile(int maxTraceLength, int bitwidth) throws Err {
         if (world.getAllCommands().size() != 1)
             Global.log.accept("Should be only one command");
 
-        Sig scopeChange = getSignature("this/Event", world);
+        return execute(this.world.getAllCommands().get(0), maxTraceLength, bitwidth);
+    }
+
+    /*
+     * solves parsed module with an additional fact (expression over its signatures, e.g. a trace).
+     * lets one parsed module be checked against many traces without generating and parsing it again
+     */
+    public A4Solution executeWithFact(int maxTraceLength, int bitwidth, String fact) throws Err {
+        return executeWithFact(maxTraceLength, bitwidth, parseFact(fact));
+    }
+
+    // fact parsed by parseFact, e.g. to be solved again with more conditions; null - no fact
+    public A4Solution executeWithFact(int maxTraceLength, int bitwidth, Expr fact) throws Err {
         Command c = this.world.getAllCommands().get(0);
+        if (fact != null)
+            c = c.change(c.formula.and(fact));
+
+        return execute(c, maxTraceLength, bitwidth);
+    }
+
+    // null for an empty fact
+    public Expr parseFact(String fact) throws Err {
+        if (fact == null || fact.isEmpty())
+            return null;
+
+        return this.world.parseOneExpressionFromString(fact);
+    }
+
+    private A4Solution execute(Command c, int maxTraceLength, int bitwidth) throws Err {
+        Sig scopeChange = getSignature("this/Event", world);
         Command newCommand = changeBitwidth(bitwidth, c.change(scopeChange, false, maxTraceLength));
         //Global.log.accept("Bitwidth: " + newCommand.bitwidth);
-        
-        return TranslateAlloyToKodkod.execute_command(this.reporter, this.world.getAllReachableSigs(), newCommand, config);
+
+        long start = System.nanoTime();
+        translated = 0;
+        A4Solution solution = TranslateAlloyToKodkod.execute_command(this.reporter, this.world.getAllReachableSigs(), newCommand, config);
+        lastExecutionTime = System.nanoTime() - start;
+
+        if (translated == 0) {
+            Telemetry.stop("translation", start);
+        } else {
+            Telemetry.record("translation", translated - start);
+            Telemetry.stop("solve", translated);
+        }
+
+        return solution;
+    }
+
+    public SatSolver getSatSolver() {
+        return config.solver;
+    }
+
+    // translation + first solve time of the last executeFromFile call, ns
+    public long getLastExecutionTime() {
+        return lastExecutionTime;
     }
 
     private Command changeBitwidth(int bitwidth, Command command) {
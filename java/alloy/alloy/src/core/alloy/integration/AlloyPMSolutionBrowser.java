@@ -2,6 +2,7 @@ package core.alloy.integration;
 
 
 import core.Global;
+import core.RunContext;
 import core.exceptions.BadSolutionException;
 import core.models.declare.data.NumericToken;
 import core.models.serialization.EventAdapter;
@@ -13,36 +14,38 @@ import edu.mit.csail.sdg.alloy4compiler.ast.Sig;
 import edu.mit.csail.sdg.alloy4compiler.ast.Sig.PrimSig;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Tuple;
-import edu.mit.csail.sdg.alloy4compiler.translator.A4TupleSet;
 import edu.mit.csail.sdg.alloy4whole.Helper;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class AlloyPMSolutionBrowser {
     private static Logger logger = Logger.getLogger("AlloySolutionBrowser");
-    private Module module;
+    private Handles handles;
     private A4Solution solution;
-    private Map<String, PrimSig> atomToSig;
     private int length;
 
+    // task, data and tokens of every position, read once from the field relations of the solution
+    private String[] tasks;
+    private List<List<String>> data;
+    private List<List<String>> tokens;
+
     public AlloyPMSolutionBrowser(A4Solution solution, Module module, int length) {
-        this.solution = solution;
-        this.module = module;
-        this.length = length;
+        this(solution, Handles.of(module, length));
+    }
 
-        try {
-            this.atomToSig = Helper.atom2sig(solution);
-        } catch (Err err) {
-            logger.log(Level.SEVERE, err.getMessage());
-        }
+    public AlloyPMSolutionBrowser(A4Solution solution, Handles handles) {
+        this.solution = solution;
+        this.handles = handles;
+        this.length = handles.length;
     }
 
     public PrimSig atom2Sig(String atom) {
-        return atomToSig.get(atom);
+        return handles.atom2Sig(solution, atom);
     }
 
     List<EventAdapter> orderedPEvents = null;
@@ -51,11 +54,11 @@ public class AlloyPMSolutionBrowser {
         if (orderedPEvents != null)
             return orderedPEvents;
 
+        readFields();
         orderedPEvents = new ArrayList<>(length);
         for (int i = 0; i < length; ++i) {
-            Expr taskExpr = exprFromString("TE" + i + ".task");
-            String name = retrieveAtomLabel(taskExpr);
-            if (name == null || name.equals("this/DummyActivity") && !Global.dummyActivitiesAllowed)  // end of trace with length<max
+            String name = tasks[i];
+            if (name == null || name.equals("this/DummyActivity") && !RunContext.current().dummyActivitiesAllowed)  // end of trace with length<max
                 continue;
 
             List<Payload> payload = retrievePayload(i);
@@ -65,12 +68,44 @@ public class AlloyPMSolutionBrowser {
         return orderedPEvents;
     }
 
-    private List<Payload> retrievePayload(int pos) throws Err, IOException, BadSolutionException {
-        Expr payloadExpr = exprFromString("TE" + pos + ".data");
+    // one evaluation per field instead of one parsed expression per position
+    private void readFields() throws Err {
+        tasks = new String[length];
+        data = positionLists();
+        tokens = positionLists();
+
+        for (A4Tuple t : solution.eval(handles.task)) {
+            int pos = handles.position(atom2Sig(t.atom(0)));
+            if (pos >= 0 && tasks[pos] == null)
+                tasks[pos] = atom2Sig(t.atom(1)).label;
+        }
+
+        for (A4Tuple t : solution.eval(handles.data)) {
+            int pos = handles.position(atom2Sig(t.atom(0)));
+            if (pos >= 0)
+                data.get(pos).add(t.atom(1));
+        }
+
+        for (A4Tuple t : solution.eval(handles.tokens)) {
+            int pos = handles.position(atom2Sig(t.atom(0)));
+            if (pos >= 0)
+                tokens.get(pos).add(t.atom(1));
+        }
+    }
+
+    private List<List<String>> positionLists() {
+        List<List<String>> lists = new ArrayList<>(length);
+        for (int i = 0; i < length; ++i)
+            lists.add(new ArrayList<>());
+
+        return lists;
+    }
+
+    private List<Payload> retrievePayload(int pos) throws BadSolutionException {
         ArrayList<Payload> result = new ArrayList<>();
-        for (A4Tuple t : ((A4TupleSet) solution.eval(payloadExpr))) {
-            String name = getParentSignature(t.atom(0)).label;
-            String value = atom2Sig(t.atom(0)).label;
+        for (String atom : data.get(pos)) {
+            String name = getParentSignature(atom).label;
+            String value = atom2Sig(atom).label;
             result.add(new Payload(name, value, getTokensFor(pos, name)));
         }
 
@@ -81,18 +116,17 @@ public class AlloyPMSolutionBrowser {
         return result;
     }
 
-    private Set<NumericToken> getTokensFor(int pos, String type) throws Err, IOException {
-        Expr expr = exprFromString("(TE" + pos + ".tokens)");
-        Set<NumericToken> tokens = new HashSet<>();
-        for (A4Tuple t : (A4TupleSet) solution.eval(expr)) {
-            String label = atom2Sig(t.atom(0)).label;
+    private Set<NumericToken> getTokensFor(int pos, String type) {
+        Set<NumericToken> result = new HashSet<>();
+        for (String atom : tokens.get(pos)) {
+            String label = atom2Sig(atom).label;
             if (label.substring(5 + Global.samePrefix.length()).startsWith(type.substring(5))) {  // 5 -- "this/".length
                 NumericToken.Type ttype = getNumericTokenType(label);
-                tokens.add(new NumericToken(ttype, label));
+                result.add(new NumericToken(ttype, label));
             }
         }
 
-        return tokens;
+        return result;
     }
 
     public NumericToken.Type getNumericTokenType(String val) {
@@ -109,15 +143,75 @@ public class AlloyPMSolutionBrowser {
         return atom2Sig(atom).parent;
     }
 
-    private String retrieveAtomLabel(Expr exprToTupleSet) throws Err {
-        for (A4Tuple t : (A4TupleSet) solution.eval(exprToTupleSet)) {
-            return atom2Sig(t.atom(0)).label;
+    public Expr exprFromString(String stringExpr) throws IOException, Err {
+        return handles.module.parseOneExpressionFromString(stringExpr);
+    }
+
+    /*
+     * what the browser needs from a module of a given trace length, resolved once and shared by all its solutions:
+     * Event fields, the position of each TE sig and the atom to signature mapping.
+     * atoms are named after their signature (Sig$n), so the mapping of one solution holds for every other;
+     * Helper.atom2sig is computed again only when an atom not seen before turns up
+     */
+    public static class Handles {
+        private final Module module;
+        private final int length;
+        private final Sig.Field task;
+        private final Sig.Field data;
+        private final Sig.Field tokens;
+        private final Map<String, Integer> positions = new HashMap<>();  // by TE sig label
+        private final Map<String, PrimSig> atomToSig = new ConcurrentHashMap<>();
+
+        private Handles(Module module, int length) {
+            this.module = module;
+            this.length = length;
+
+            for (int i = 0; i < length; ++i)
+                positions.put("this/TE" + i, i);
+
+            Sig event = module.getAllReachableSigs().stream().filter(i -> i.label.equals("this/Event")).findFirst().get();
+            this.task = getField(event, "task");
+            this.data = getField(event, "data");
+            this.tokens = getField(event, "tokens");
         }
 
-        return null;
-    }
+        public static Handles of(Module module, int length) {
+            return new Handles(module, length);
+        }
 
-    public Expr exprFromString(String stringExpr) throws IOException, Err {
-        return module.parseOneExpressionFromString(stringExpr);
+        public Module getModule() {
+            return module;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        private static Sig.Field getField(Sig sig, String label) {
+            for (Sig.Field i : sig.getFields())
+                if (i.label.equals(label))
+                    return i;
+
+            throw new IllegalArgumentException("Field " + label + " not found in " + sig.label);
+        }
+
+        private int position(Sig sig) {
+            return sig == null ? -1 : positions.getOrDefault(sig.label, -1);
+        }
+
+        private PrimSig atom2Sig(A4Solution solution, String atom) {
+            PrimSig sig = atomToSig.get(atom);
+            if (sig == null) {
+                try {
+                    atomToSig.putAll(Helper.atom2sig(solution));
+                } catch (Err err) {
+                    logger.log(Level.SEVERE, err.getMessage());
+                }
+
+                sig = atomToSig.get(atom);
+            }
+
+            return sig;
+        }
     }
 }
@@ -5,7 +5,10 @@ import core.models.declare.data.NumericDataImpl;
 import core.models.query.QueryEvent;
 import core.models.query.QueryState;
 import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4compiler.ast.Expr;
+import edu.mit.csail.sdg.alloy4compiler.ast.ExprConstant;
 import edu.mit.csail.sdg.alloy4compiler.ast.Module;
+import edu.mit.csail.sdg.alloy4compiler.ast.Sig;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Tuple;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4TupleSet;
@@ -13,51 +16,139 @@ import edu.mit.csail.sdg.alloy4compiler.translator.A4TupleSet;
 import java.io.IOException;
 import java.util.*;
 
+/*
+ * enumerates solutions of a query module and collects distinct query states (values of template parameters).
+ * expressions for parameters are parsed once per module and evaluated against every solution.
+ *
+ * many solutions differ only in parts the query does not look at (which events are bound, other data),
+ * so plain enumeration mostly yields states already found. after a run of such duplicates the module is
+ * solved again with all found states excluded, which gives a new state or proves there is none.
+ * enumeration stops at the solution limit or time limit per trace, whichever comes first
+ */
 public class QueryExtractor {
+    private static final int maxDuplicateRun = 32;
 
-    public Set<QueryState> get(A4Solution solution, Module world, Map<String, String> paramEncoding, Set<String> dataParams, Map<String, NumericDataImpl> numericData, int limit) throws Err, IOException {
-        Set<QueryState> result = new HashSet<>();
-        while (solution != null && solution.satisfiable() && limit > 0) {
-            result.add(getOne(solution, world, paramEncoding, dataParams, numericData));
-            solution = solution.next();
-            --limit;
+    private final Map<String, String> paramEncoding;
+    private final Set<String> dataParams;
+    private final Map<String, NumericDataImpl> numericData;
+    // by template parameter
+    private final Map<String, Expr> tasks = new HashMap<>();
+    private final Map<String, Expr> data = new HashMap<>();
+    private final Map<String, Expr> vacuityChecks = new HashMap<>();
+
+    private int limit = 1000;
+    private long timeLimit = 0;   // ms; 0 - none
+
+    public QueryExtractor(Module world, Map<String, String> paramEncoding, Set<String> dataParams, Map<String, NumericDataImpl> numericData) throws Err, IOException {
+        this.paramEncoding = paramEncoding;
+        this.dataParams = dataParams;
+        this.numericData = numericData;
+
+        for (Map.Entry<String, String> param : paramEncoding.entrySet()) {
+            String name = param.getValue();
+            tasks.put(param.getKey(), world.parseOneExpressionFromString(name + ".task"));
+            String vacuityCheck;
+            if (dataParams.contains(param.getKey())) {
+                data.put(param.getKey(), world.parseOneExpressionFromString(name + ".data"));
+                vacuityCheck = "some te: Event | (te.task = " + name + ".task and " + name + ".data in te.data)";
+            } else {
+                vacuityCheck = "some te: Event | (te.task = " + name + ".task)";
+            }
+
+            vacuityChecks.put(param.getKey(), world.parseOneExpressionFromString(vacuityCheck));
         }
+    }
+
+    // max. number of solutions looked at per trace
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    // max. time spent per trace, ms; 0 - no limit
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /*
+     * resolver solves the module (with the same trace) again under an extra condition;
+     * null - plain enumeration only
+     */
+    public Set<QueryState> get(A4Solution solution, Resolver resolver) throws Err, IOException {
+        long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000 : Long.MAX_VALUE;
+        Set<QueryState> result = new HashSet<>();
+        Expr excluded = ExprConstant.TRUE;   // no found state
+        int solutions = 0;
+        int duplicates = 0;
+        while (solution != null && solution.satisfiable()) {
+            if (solutions == limit) {
+                Global.log.accept("Limit is reached while extracting query");
+                break;
+            }
+
+            if (System.nanoTime() > deadline) {
+                Global.log.accept("Time limit is reached while extracting query");
+                break;
+            }
 
-        if (limit == 0) {
-            Global.log.accept("Limit is reached while extracting query");
+            ++solutions;
+            Map<String, QueryEvent> values = new HashMap<>();
+            Expr state = getOne(solution, values);
+            if (result.add(new QueryState(values))) {
+                excluded = excluded.and(state.not());
+                duplicates = 0;
+            } else {
+                ++duplicates;
+            }
+
+            if (resolver != null && duplicates == maxDuplicateRun) {
+                solution = resolver.solve(excluded);
+                duplicates = 0;
+            } else {
+                solution = solution.next();
+            }
         }
 
         return result;
     }
 
-    private QueryState getOne(A4Solution solution, Module world, Map<String, String> paramEncoding, Set<String> dataParams, Map<String, NumericDataImpl> numericData) throws IOException, Err {
-        Map<String, QueryEvent> result = new HashMap<>();
+    // fills values of parameters; returns condition which holds in all solutions with these values
+    private Expr getOne(A4Solution solution, Map<String, QueryEvent> result) throws Err {
+        Expr state = ExprConstant.TRUE;
         for (Map.Entry<String, String> param : paramEncoding.entrySet()) {
             QueryEvent item = new QueryEvent();
             item.setTemplateName(param.getKey());
-            item.setActivity(getActivityName(solution, world, param.getValue()));
+
+            A4TupleSet task = (A4TupleSet) solution.eval(tasks.get(param.getKey()));
+            item.setActivity(getActivityName(task));
+            Expr condition = tasks.get(param.getKey()).equal(atoms(task));
             if (dataParams.contains(param.getKey())) {
-                fillData(item.getData(), solution, world, param.getValue(), numericData);
+                A4TupleSet values = (A4TupleSet) solution.eval(data.get(param.getKey()));
+                fillData(item.getData(), values);
+                condition = condition.and(data.get(param.getKey()).equal(atoms(values)));
             }
 
-            String vacuityCheck;
-            if (dataParams.contains(param.getKey()))
-                vacuityCheck = "some te: Event | (te.task = " + param.getValue() + ".task and " + param.getValue() + ".data in te.data)";
-            else
-                vacuityCheck = "some te: Event | (te.task = " + param.getValue() + ".task)";
-
-            Object ok = solution.eval(world.parseOneExpressionFromString(vacuityCheck));
+            Object ok = solution.eval(vacuityChecks.get(param.getKey()));
             if (ok instanceof Boolean)
                 item.setVacuous((Boolean) ok);
 
             result.put(item.getTemplateName(), item);
+            state = state.and(condition);
         }
 
-        return new QueryState(result);
+        return state;
     }
 
-    private void fillData(Map<String, String> result, A4Solution solution, Module world, String param, Map<String, NumericDataImpl> numericData) throws IOException, Err {
-        for (A4Tuple t : (A4TupleSet) solution.eval(world.parseOneExpressionFromString(param + ".data"))) {
+    // atoms are 'one' signatures in query modules
+    private static Expr atoms(A4TupleSet tuples) {
+        Expr union = null;
+        for (A4Tuple t : tuples)
+            union = union == null ? t.sig(0) : union.plus(t.sig(0));
+
+        return union == null ? Sig.NONE : union;
+    }
+
+    private void fillData(Map<String, String> result, A4TupleSet tuples) {
+        for (A4Tuple t : tuples) {
             String key = t.sig(0).parent.label.substring(5);
             String value = t.sig(0).label.substring(5);
             if (numericData.containsKey(key)){
@@ -68,11 +159,15 @@ public class QueryExtractor {
         }
     }
 
-    private String getActivityName(A4Solution solution, Module world, String param) throws Err, IOException {
-        for (A4Tuple t : (A4TupleSet) solution.eval(world.parseOneExpressionFromString(param + ".task"))) {
+    private static String getActivityName(A4TupleSet tuples) {
+        for (A4Tuple t : tuples) {
             return t.sig(0).label.substring(5);
         }
 
         return null;
     }
+
+    public interface Resolver {
+        A4Solution solve(Expr condition) throws Err, IOException;
+    }
 }
@@ -0,0 +1,103 @@
+package core.alloy.integration;
+
+import core.Global;
+import core.models.AlloyRunConfiguration.Solver;
+import edu.mit.csail.sdg.alloy4compiler.translator.A4Options.SatSolver;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * maps configured solver to alloy SatSolver.
+ * native (JNI) solvers are probed once per JVM by loading their library;
+ * when requested solver is not available SAT4J is used instead
+ */
+public class SolverProvider {
+    private static final Map<Solver, Boolean> available = new EnumMap<>(Solver.class);
+    private static final Set<Solver> reported = EnumSet.noneOf(Solver.class);
+
+    public static synchronized SatSolver get(Solver requested) {
+        if (requested == null)
+            requested = Solver.SAT4J;
+
+        if (requested == Solver.AUTO) {
+            for (Solver i : Solver.values())
+                if (i != Solver.AUTO && i != Solver.SAT4J && isAvailable(i))
+                    return toSatSolver(i);
+
+            return SatSolver.SAT4J;
+        }
+
+        if (isAvailable(requested))
+            return toSatSolver(requested);
+
+        if (reported.add(requested))
+            Global.log.accept("Solver " + requested + " is not available on this machine; falling back to SAT4J");
+
+        return SatSolver.SAT4J;
+    }
+
+    public static synchronized boolean isAvailable(Solver solver) {
+        return available.computeIfAbsent(solver, SolverProvider::probe);
+    }
+
+    public static List<Solver> getAvailable() {
+        List<Solver> result = new ArrayList<>();
+        for (Solver i : Solver.values())
+            if (i != Solver.AUTO && isAvailable(i))
+                result.add(i);
+
+        return result;
+    }
+
+    private static boolean probe(Solver solver) {
+        String library = getLibraryName(solver);
+        if (library == null)
+            return solver == Solver.SAT4J;
+
+        try {
+            System.loadLibrary(library);
+            return true;
+        } catch (UnsatisfiedLinkError | SecurityException ex) {
+            return false;
+        }
+    }
+
+    private static String getLibraryName(Solver solver) {
+        switch (solver) {
+            case MINISAT:
+                return "minisat";
+            case MINISAT_PROVER:
+                return "minisatprover";
+            case GLUCOSE:
+                return "glucose";
+            case LINGELING:
+                return "lingeling";
+            case CRYPTOMINISAT:
+                return "cryptominisat";
+            default:
+                return null;
+        }
+    }
+
+    private static SatSolver toSatSolver(Solver solver) {
+        switch (solver) {
+            case MINISAT:
+                return SatSolver.MiniSatJNI;
+            case MINISAT_PROVER:
+                return SatSolver.MiniSatProverJNI;
+            case GLUCOSE:
+                return SatSolver.GlucoseJNI;
+            case LINGELING:
+                return SatSolver.LingelingJNI;
+            case CRYPTOMINISAT:
+                return SatSolver.CryptoMiniSatJNI;
+            default:
+                return SatSolver.SAT4J;
+        }
+    }
+}
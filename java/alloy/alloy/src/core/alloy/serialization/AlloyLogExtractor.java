@@ -1,7 +1,7 @@
 package core.alloy.serialization;
 
 import core.exceptions.BadSolutionException;
-import core.Global;
+import core.RunContext;
 import core.TimestampGenerator;
 import core.alloy.codegen.NameEncoder;
 import core.alloy.codegen.NameEncoder.DataMappingElement;
@@ -18,14 +18,12 @@ import edu.mit.csail.sdg.alloy4.Err;
 import edu.mit.csail.sdg.alloy4compiler.ast.Module;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import org.deckfour.xes.model.XAttribute;
-import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.model.impl.*;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -37,6 +35,7 @@ public class AlloyLogExtractor {
     private List<AbstractTraceAttribute> traceAttributes;
     private NameEncoder encoder;
     private TimestampGenerator timeGen;
+    private AlloyPMSolutionBrowser.Handles handles;  // of the last trace length
 
     public AlloyLogExtractor(Module module,
                              Map<String, Interval> numericMap,
@@ -51,28 +50,19 @@ public class AlloyLogExtractor {
         this.timeGen = new TimestampGenerator(start, duration);
     }
 
-    public XLog extract(A4Solution alloySolution, int nTraces, int length, int reuseSolutionCount) throws IOException, Err, BadSolutionException {
-        Global.log.accept("Serialization...");
-        List<XTrace> plog = new ArrayList<>(nTraces * reuseSolutionCount);
-        
-        for (int t = 0; t < nTraces && alloySolution.satisfiable(); ++t) {
-            AlloyPMSolutionBrowser browser = new AlloyPMSolutionBrowser(alloySolution, module, length);
-            for (int i = 0; i < reuseSolutionCount; ++i) {
-                resetIntervalCaches();
-                plog.add(composeTrace(browser, t));
-            }
+    // composes single trace from the current solution; enumeration (A4Solution.next()) is left to the caller
+    public XTrace extractTrace(A4Solution alloySolution, int length, int number) throws IOException, Err, BadSolutionException {
+        AlloyPMSolutionBrowser browser = new AlloyPMSolutionBrowser(alloySolution, getHandles(length));
+        resetIntervalCaches();
+        return composeTrace(browser, number);
+    }
 
-            alloySolution = alloySolution.next();
-            if (nTraces % (t + 1) == 0 || t % 100 == 0)
-                System.out.print((nTraces - t) + "... ");
-        }
-        
-        System.out.print("\n");
+    // resolved once per length, not per solution
+    private synchronized AlloyPMSolutionBrowser.Handles getHandles(int length) {
+        if (handles == null || handles.getLength() != length)
+            handles = AlloyPMSolutionBrowser.Handles.of(module, length);
 
-        XLog xlog = new XLogImpl(new XAttributeMapImpl());
-        xlog.addAll(plog);
-        
-        return xlog;
+        return handles;
     }
 
     private void resetIntervalCaches() {
@@ -98,9 +88,9 @@ public class AlloyLogExtractor {
                 break;
 
             String name = unqualifyLabel(oneStateEvent.getActivityName());
-            if (Global.encodeNames)
+            if (RunContext.current().encodeNames)
                 name = encoder.getActivityMapping().get(name);
-            if (Global.underscore_spaces)
+            if (RunContext.current().underscore_spaces)
                 name = name.replace("_", " ");
             
             XAttributeMapImpl attributes = new XAttributeMapImpl();
@@ -148,13 +138,13 @@ public class AlloyLogExtractor {
             String name = i.getName();
             String value = i.getValue();
             
-            if (Global.encodeNames) {
+            if (RunContext.current().encodeNames) {
                 name = encoder.getTraceAttributeMapping().get(name);
                 if (encoder.getTraceAttributeMapping().containsKey(value))
                     value = encoder.getTraceAttributeMapping().get(value);
             }
             
-            if (Global.underscore_spaces) {
+            if (RunContext.current().underscore_spaces) {
                 name = name.replace("_", " ");
                 value = value.replace("_", " ");
             }
@@ -181,19 +171,19 @@ public class AlloyLogExtractor {
                                 String.join(", ", p.getTokens().stream().map(NumericToken::getValue).collect(Collectors.toList())) + ");");
                 }
             
-            } else if (Global.encodeNames) {
+            } else if (RunContext.current().encodeNames) {
             	
             	for (DataMappingElement dme : encoder.getDataMapping())
             		if (dme.getEncodedName().equals(dataKey))
             			dataValue = dme.getValuesMapping().get(dataValue);
             }
 
-            if (Global.encodeNames)
+            if (RunContext.current().encodeNames)
             	for (DataMappingElement dme : encoder.getDataMapping())
             		if (dme.getEncodedName().equals(dataKey))
             			dataKey = dme.getOriginalName();
 
-            if (Global.underscore_spaces) {
+            if (RunContext.current().underscore_spaces) {
                 dataKey = dataKey.replace("_", " ");
                 dataValue = dataValue.replace("_", " ");
             }
@@ -0,0 +1,33 @@
+package core.benchmark;
+
+import core.helpers.IOHelper;
+import declare.DeclareModel;
+import declare.DeclareParser;
+import declare.DeclareParserException;
+import declare.lang.Activity;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+ * bundled models used by the benchmarks.
+ * directory is taken from -Dbenchmark.files and defaults to 'files' (benchmarks are run from the repository root)
+ */
+public class BenchmarkFiles {
+    public static String getDirectory() {
+        return System.getProperty("benchmark.files", "files");
+    }
+
+    public static String readModel(String name) {
+        return IOHelper.readAllText(getDirectory() + File.separator + name);
+    }
+
+    public static List<String> getActivityNames(String declare) throws DeclareParserException {
+        DeclareModel model = DeclareParser.parse(declare);
+        return model.getActivities().stream()
+                .map(Activity::getName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,27 @@
+package core.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * runs all benchmarks of this package (or those selected by the usual jmh command line)
+ * and writes the results as json, so that runs before and after a change can be compared
+ */
+public class Benchmarks {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        if (cli.getIncludes().isEmpty())
+            options.include(Benchmarks.class.getPackage().getName() + ".*Benchmark");
+
+        if (!cli.getResult().hasValue())
+            options.resultFormat(ResultFormatType.JSON).result("benchmark-results.json");
+
+        Options built = options.build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,111 @@
+package core.benchmark;
+
+import core.Global;
+import core.RunContext;
+import core.alloy.codegen.AlloyCodeGenerator;
+import core.alloy.codegen.NameEncoder;
+import core.alloy.integration.AlloyComponent;
+import core.alloy.serialization.AlloyLogExtractor;
+import declare.DeclareModel;
+import declare.DeclareParser;
+import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
+import org.deckfour.xes.model.XTrace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * stages of log generation, each measured separately on the output of the previous one:
+ * parsing, name encoding, alloy code generation, translation to kodkod (including the first solve)
+ * and extraction of one trace from a solution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GenerationBenchmark {
+    private static final int bitwidth = 5;
+
+    @Param({"Response.decl", "MikeModel.decl", "reference10.decl"})
+    public String model;
+
+    @Param({"10", "30", "60"})
+    public int traceLength;
+
+    private String declare;
+    private String encodedDeclare;
+    private DeclareModel parsed;
+    private String alloyCode;
+    private A4Solution solution;
+    private AlloyLogExtractor extractor;
+    private int traceNumber = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Global.log = s -> {};
+        RunContext.getDefault().encodeNames = true;
+
+        declare = BenchmarkFiles.readModel(model);
+        NameEncoder encoder = new NameEncoder();
+        encoder.createDeclMapping(declare);
+        encodedDeclare = encoder.encodeDeclModel(declare);
+        parsed = DeclareParser.parse(encodedDeclare);
+
+        AlloyCodeGenerator gen = generateCode();
+        alloyCode = gen.getAlloyCode();
+
+        AlloyComponent alloy = new AlloyComponent();
+        extractor = new AlloyLogExtractor(alloy.parseFromString(alloyCode), gen.generateNumericMap(), Collections.emptyList(),
+                encoder, LocalDateTime.now(), Duration.ofHours(4));
+        solution = alloy.executeFromFile(traceLength, bitwidth);
+        if (solution == null || !solution.satisfiable())
+            throw new IllegalStateException(model + " has no traces of length " + traceLength);
+    }
+
+    @Benchmark
+    public DeclareModel parse() throws Exception {
+        return DeclareParser.parse(encodedDeclare);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        NameEncoder encoder = new NameEncoder();
+        encoder.createDeclMapping(declare);
+        return encoder.encodeDeclModel(declare);
+    }
+
+    @Benchmark
+    public AlloyCodeGenerator generateCode() throws Exception {
+        AlloyCodeGenerator gen = new AlloyCodeGenerator(traceLength, 1, bitwidth, 1, false, false, true);
+        gen.runLogGeneration(parsed, false, 1, null, "log_generation");
+        return gen;
+    }
+
+    @Benchmark
+    public A4Solution translate() throws Exception {
+        AlloyComponent alloy = new AlloyComponent();
+        alloy.parseFromString(alloyCode);
+        return alloy.executeFromFile(traceLength, bitwidth);
+    }
+
+    @Benchmark
+    public XTrace extractTrace() throws Exception {
+        return extractor.extractTrace(solution, traceLength, traceNumber++);
+    }
+}
@@ -0,0 +1,95 @@
+package core.benchmark;
+
+import core.Global;
+import core.RunContext;
+import core.models.AlloyRunConfiguration.ConformanceBackend;
+import core.monitoring.MonitorRunner;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.processmining.operationalsupport.xml.OSXMLConverter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * cost of one MonitorRunner.setTrace call.
+ * events of a random trace (fixed seed) are sent one by one, followed by the closing 'complete' event,
+ * and then the same trace starts again, so the result is the average over all prefixes of traceLength
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MonitorBenchmark {
+    @Param({"Response.decl", "MikeModel.decl"})
+    public String model;
+
+    @Param({"10", "30", "60"})
+    public int traceLength;
+
+    @Param({"ALLOY", "NATIVE"})
+    public ConformanceBackend backend;
+
+    @Param({"false"})
+    public boolean conflict;
+
+    private MonitorRunner runner;
+    private String[] events;
+    private int position = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Global.log = s -> {};
+        RunContext.getDefault().conformanceBackend = backend;
+
+        String declare = BenchmarkFiles.readModel(model);
+        runner = new MonitorRunner(conflict, declare);
+
+        List<String> activities = BenchmarkFiles.getActivityNames(declare);
+        OSXMLConverter converter = new OSXMLConverter();
+        Random random = new Random(42);
+        events = new String[traceLength + 1];
+        for (int i = 0; i < traceLength; ++i)
+            events[i] = toXML(converter, activities.get(random.nextInt(activities.size())), i);
+        events[traceLength] = toXML(converter, "complete", traceLength);
+    }
+
+    @Benchmark
+    public String setTrace() throws Exception {
+        String answer = runner.setTrace(events[position]);
+        position = (position + 1) % events.length;
+        return answer;
+    }
+
+    // monitoring clients send every event as a trace of one event
+    private static String toXML(OSXMLConverter converter, String activity, int minute) {
+        XFactory factory = XFactoryRegistry.instance().currentDefault();
+        XEvent event = factory.createEvent();
+        XConceptExtension.instance().assignName(event, activity);
+        XTimeExtension.instance().assignTimestamp(event, new Date(minute * 60000L));
+
+        XTrace trace = factory.createTrace();
+        trace.add(event);
+        return converter.toXML(trace);
+    }
+}
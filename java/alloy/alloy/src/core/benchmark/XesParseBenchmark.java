@@ -0,0 +1,86 @@
+package core.benchmark;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * parsing of a serialized log held in memory, so that disk does not affect the numbers.
+ * log consists of random traces over the activities of the model (fixed seed)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XesParseBenchmark {
+    @Param({"MikeModel.decl"})
+    public String model;
+
+    @Param({"10", "30", "60"})
+    public int traceLength;
+
+    @Param({"100", "1000"})
+    public int traces;
+
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<String> activities = BenchmarkFiles.getActivityNames(BenchmarkFiles.readModel(model));
+        XFactory factory = XFactoryRegistry.instance().currentDefault();
+        Random random = new Random(42);
+
+        XLog log = factory.createLog();
+        log.getExtensions().add(XConceptExtension.instance());
+        log.getExtensions().add(XTimeExtension.instance());
+        for (int i = 0; i < traces; ++i) {
+            XTrace trace = factory.createTrace();
+            XConceptExtension.instance().assignName(trace, "Case No. " + (i + 1));
+            long time = 0;
+            for (int j = 0; j < traceLength; ++j) {
+                XEvent event = factory.createEvent();
+                XConceptExtension.instance().assignName(event, activities.get(random.nextInt(activities.size())));
+                XTimeExtension.instance().assignTimestamp(event, new Date(time += 60000));
+                trace.add(event);
+            }
+
+            log.add(trace);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XesXmlSerializer().serialize(log, out);
+        serialized = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<XLog> parse() throws Exception {
+        return new XesXmlParser().parse(new ByteArrayInputStream(serialized));
+    }
+}
@@ -0,0 +1,466 @@
+package core.conformance;
+
+import declare.DeclareParserException;
+import declare.lang.Constraint;
+import declare.lang.DataConstraint;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * declare constraint compiled into a small automaton which reads a concrete trace event by event.
+ * states follow ConstraintChecker (alloy monitoring) for the same prefix,
+ * so both backends can be used interchangeably and compared.
+ * data constraints keep the activations/targets they still need for correlation;
+ * without correlation condition one remembered event is enough and each step is O(1)
+ */
+public abstract class ConstraintAutomaton {
+    protected final Constraint constraint;
+
+    protected ConstraintAutomaton(Constraint constraint) {
+        this.constraint = constraint;
+    }
+
+    public abstract void step(XEvent event);
+
+    // state of the prefix read so far
+    public abstract Constraint.State getState();
+
+    // state when no more events will come
+    public Constraint.State getFinalState() {
+        Constraint.State state = getState();
+        if (state == Constraint.State.POSSIBLY_SATISFIED)
+            return Constraint.State.PERMANENTLY_SATISFIED;
+        if (state == Constraint.State.POSSIBLY_VIOLATED)
+            return Constraint.State.PERMANENTLY_VIOLATED;
+        return state;
+    }
+
+    public Constraint.State run(Iterable<XEvent> trace) {
+        for (XEvent event : trace)
+            step(event);
+        return getState();
+    }
+
+    public Constraint getConstraint() {
+        return constraint;
+    }
+
+    public static ConstraintAutomaton compile(Constraint c) throws DeclareParserException {
+        DataCondition activation = DataCondition.TRUE;
+        DataCondition correlation = DataCondition.TRUE;
+        if (c instanceof DataConstraint && ((DataConstraint) c).getFunctions() != null) {
+            DataConstraint dc = (DataConstraint) c;
+            activation = DataCondition.of(dc.getFirstFunction());
+            if (dc.hasSecondFunction())
+                correlation = DataCondition.of(dc.getSecondFunction());
+        }
+
+        Roles roles = new Roles(c.taskA(), c.isBinary() ? c.taskB() : null, activation, correlation, false);
+
+        switch (c.getName()) {
+            case "Init":
+                return new Init(c, roles);
+            case "End":
+                return new End(c, roles);
+            case "Existence":
+            case "Absence":
+            case "Exactly":
+                return new Counting(c, roles, c.isBinary() ? Integer.parseInt(c.taskB()) : 1);
+            case "Choice":
+            case "ExclusiveChoice":
+                return new Choice(c, roles);
+            case "RespondedExistence":
+                return new RespondedExistence(c, roles);
+            case "CoExistence":
+                return new Conjunction(c, new RespondedExistence(c, roles), new RespondedExistence(c, roles.reverse()));
+            case "Response":
+            case "AlternateResponse":
+            case "ChainResponse":
+                return new Response(c, roles, c.getName());
+            case "Precedence":
+            case "AlternatePrecedence":
+            case "ChainPrecedence":
+                return new Precedence(c, roles, c.getName());
+            case "Succession":
+                return new Conjunction(c, new Response(c, roles, "Response"), new Precedence(c, roles.reverse(), "Precedence"));
+            case "AlternateSuccession":
+                return new Conjunction(c, new Response(c, roles, "AlternateResponse"), new Precedence(c, roles.reverse(), "AlternatePrecedence"));
+            case "ChainSuccession":
+                return new Conjunction(c, new Response(c, roles, "ChainResponse"), new Precedence(c, roles.reverse(), "ChainPrecedence"));
+            case "NotRespondedExistence":
+            case "NotResponse":
+            case "NotPrecedence":
+            case "NotChainResponse":
+            case "NotChainPrecedence":
+                return new Negative(c, roles, c.getName());
+            default:
+                throw new DeclareParserException("Not supported template: " + c.getName());
+        }
+    }
+
+    private static String name(XEvent event) {
+        return XConceptExtension.instance().extractName(event);
+    }
+
+    /*
+     * who activates the constraint and who fulfils it. reversed roles are used for the second half
+     * of CoExistence and Succession templates: B activates, A (with its condition) is required
+     */
+    static class Roles {
+        final String a;
+        final String b;
+        final DataCondition activationCondition;
+        final DataCondition correlation;
+        final boolean reversed;
+
+        Roles(String a, String b, DataCondition activationCondition, DataCondition correlation, boolean reversed) {
+            this.a = a;
+            this.b = b;
+            this.activationCondition = activationCondition;
+            this.correlation = correlation;
+            this.reversed = reversed;
+        }
+
+        Roles reverse() {
+            return new Roles(a, b, activationCondition, correlation, !reversed);
+        }
+
+        boolean isActivation(XEvent e) {
+            return reversed ? b.equals(name(e)) : a.equals(name(e)) && activationCondition.holds(e);
+        }
+
+        boolean isTarget(XEvent e) {
+            return reversed ? a.equals(name(e)) && activationCondition.holds(e) : b != null && b.equals(name(e));
+        }
+
+        // correlation condition always gets event of A as its first argument
+        boolean matches(XEvent activation, XEvent target) {
+            return reversed ? correlation.holds(target, activation) : correlation.holds(activation, target);
+        }
+
+        boolean anyMatch(XEvent activation, List<XEvent> targets) {
+            for (XEvent t : targets)
+                if (matches(activation, t))
+                    return true;
+            return false;
+        }
+
+        boolean anyMatched(List<XEvent> activations, XEvent target) {
+            for (XEvent a : activations)
+                if (matches(a, target))
+                    return true;
+            return false;
+        }
+
+        // without correlation any remembered event matches, so one is enough
+        void remember(List<XEvent> events, XEvent e) {
+            if (correlation.isTrivial() && !events.isEmpty())
+                return;
+            events.add(e);
+        }
+    }
+
+    static class Init extends ConstraintAutomaton {
+        private final Roles roles;
+        private Constraint.State state = Constraint.State.POSSIBLY_VIOLATED;
+
+        Init(Constraint c, Roles roles) {
+            super(c);
+            this.roles = roles;
+        }
+
+        public void step(XEvent event) {
+            if (state == Constraint.State.POSSIBLY_VIOLATED)
+                state = roles.isActivation(event) ? Constraint.State.PERMANENTLY_SATISFIED : Constraint.State.PERMANENTLY_VIOLATED;
+        }
+
+        public Constraint.State getState() {
+            return state;
+        }
+    }
+
+    static class End extends ConstraintAutomaton {
+        private final Roles roles;
+        private boolean last = false;
+
+        End(Constraint c, Roles roles) {
+            super(c);
+            this.roles = roles;
+        }
+
+        public void step(XEvent event) {
+            last = roles.isActivation(event);
+        }
+
+        public Constraint.State getState() {
+            return last ? Constraint.State.POSSIBLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+        }
+    }
+
+    static class Counting extends ConstraintAutomaton {
+        private final Roles roles;
+        private final int n;
+        private int count = 0;
+
+        Counting(Constraint c, Roles roles, int n) {
+            super(c);
+            this.roles = roles;
+            this.n = n;
+        }
+
+        public void step(XEvent event) {
+            if (roles.isActivation(event))
+                ++count;
+        }
+
+        public Constraint.State getState() {
+            switch (constraint.getName()) {
+                case "Existence":
+                    return count >= n ? Constraint.State.PERMANENTLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+                case "Absence":
+                    return count < n ? Constraint.State.POSSIBLY_SATISFIED : Constraint.State.PERMANENTLY_VIOLATED;
+                default:
+                    if (count == n)
+                        return Constraint.State.POSSIBLY_SATISFIED;
+                    return count < n ? Constraint.State.POSSIBLY_VIOLATED : Constraint.State.PERMANENTLY_VIOLATED;
+            }
+        }
+    }
+
+    static class Choice extends ConstraintAutomaton {
+        private final Roles roles;
+        private boolean seenA = false;
+        private boolean seenB = false;
+
+        Choice(Constraint c, Roles roles) {
+            super(c);
+            this.roles = roles;
+        }
+
+        public void step(XEvent event) {
+            seenA |= roles.isActivation(event);
+            seenB |= roles.isTarget(event) && roles.matches(event, event);
+        }
+
+        public Constraint.State getState() {
+            if (constraint.getName().equals("Choice"))
+                return seenA || seenB ? Constraint.State.PERMANENTLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+
+            if (seenA && seenB)
+                return Constraint.State.PERMANENTLY_VIOLATED;
+            return seenA || seenB ? Constraint.State.POSSIBLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+        }
+    }
+
+    static class RespondedExistence extends ConstraintAutomaton {
+        private final Roles roles;
+        private final List<XEvent> pending = new ArrayList<>();
+        private final List<XEvent> targets = new ArrayList<>();
+        private int activations = 0;
+
+        RespondedExistence(Constraint c, Roles roles) {
+            super(c);
+            this.roles = roles;
+        }
+
+        public void step(XEvent event) {
+            if (roles.isTarget(event)) {
+                pending.removeIf(a -> roles.matches(a, event));
+                roles.remember(targets, event);
+            }
+
+            if (roles.isActivation(event)) {
+                ++activations;
+                if (!roles.anyMatch(event, targets))
+                    roles.remember(pending, event);
+            }
+        }
+
+        public Constraint.State getState() {
+            if (!pending.isEmpty())
+                return Constraint.State.POSSIBLY_VIOLATED;
+            return activations > 0 ? Constraint.State.PERMANENTLY_SATISFIED : Constraint.State.POSSIBLY_SATISFIED;
+        }
+    }
+
+    // Response, AlternateResponse, ChainResponse
+    static class Response extends ConstraintAutomaton {
+        private final Roles roles;
+        private final String template;
+        private final List<XEvent> pending = new ArrayList<>();
+        private boolean violated = false;
+
+        Response(Constraint c, Roles roles, String template) {
+            super(c);
+            this.roles = roles;
+            this.template = template;
+        }
+
+        public void step(XEvent event) {
+            boolean target = roles.isTarget(event);
+
+            if (template.equals("ChainResponse")) {
+                if (!pending.isEmpty() && !(target && roles.matches(pending.get(0), event)))
+                    violated = true;
+                pending.clear();
+            } else if (target) {
+                pending.removeIf(a -> roles.matches(a, event));
+            }
+
+            if (roles.isActivation(event)) {
+                if (template.equals("AlternateResponse") && !pending.isEmpty())
+                    violated = true;
+                roles.remember(pending, event);
+            }
+        }
+
+        public Constraint.State getState() {
+            if (template.equals("Response"))
+                return pending.isEmpty() ? Constraint.State.POSSIBLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+
+            if (violated)
+                return Constraint.State.PERMANENTLY_VIOLATED;
+            return pending.isEmpty() ? Constraint.State.POSSIBLY_SATISFIED : Constraint.State.POSSIBLY_VIOLATED;
+        }
+    }
+
+    // Precedence, AlternatePrecedence, ChainPrecedence
+    static class Precedence extends ConstraintAutomaton {
+        private final Roles roles;
+        private final String template;
+        private final List<XEvent> targets = new ArrayList<>();
+        private XEvent previous;
+        private int activations = 0;
+        private boolean violated = false;
+
+        Precedence(Constraint c, Roles roles, String template) {
+            super(c);
+            this.roles = roles;
+            this.template = template;
+        }
+
+        public void step(XEvent event) {
+            if (roles.isActivation(event)) {
+                ++activations;
+                if (template.equals("ChainPrecedence"))
+                    violated |= previous == null || !(roles.isTarget(previous) && roles.matches(event, previous));
+                else
+                    violated |= !roles.anyMatch(event, targets);
+
+                // alternate: target has to occur between two activations
+                if (template.equals("AlternatePrecedence"))
+                    targets.clear();
+            }
+
+            if (roles.isTarget(event))
+                roles.remember(targets, event);
+
+            previous = event;
+        }
+
+        public Constraint.State getState() {
+            if (violated)
+                return Constraint.State.PERMANENTLY_VIOLATED;
+            if (template.equals("Precedence") && activations > 0)
+                return Constraint.State.PERMANENTLY_SATISFIED;
+            return Constraint.State.POSSIBLY_SATISFIED;
+        }
+    }
+
+    // NotRespondedExistence, NotResponse, NotPrecedence, NotChainResponse, NotChainPrecedence
+    static class Negative extends ConstraintAutomaton {
+        private final Roles roles;
+        private final String template;
+        private final List<XEvent> activations = new ArrayList<>();
+        private final List<XEvent> targets = new ArrayList<>();
+        private XEvent previous;
+        private boolean violated = false;
+
+        Negative(Constraint c, Roles roles, String template) {
+            super(c);
+            this.roles = roles;
+            this.template = template;
+        }
+
+        public void step(XEvent event) {
+            boolean activation = roles.isActivation(event);
+            boolean target = roles.isTarget(event);
+
+            switch (template) {
+                case "NotRespondedExistence":
+                    if (target) {
+                        violated |= roles.anyMatched(activations, event);
+                        roles.remember(targets, event);
+                    }
+                    if (activation) {
+                        violated |= roles.anyMatch(event, targets);
+                        roles.remember(activations, event);
+                    }
+                    break;
+                case "NotResponse":
+                    if (target)
+                        violated |= roles.anyMatched(activations, event);
+                    if (activation)
+                        roles.remember(activations, event);
+                    break;
+                case "NotPrecedence":
+                    if (activation)
+                        violated |= roles.anyMatch(event, targets);
+                    if (target)
+                        roles.remember(targets, event);
+                    break;
+                case "NotChainResponse":
+                    violated |= target && previous != null && roles.isActivation(previous) && roles.matches(previous, event);
+                    break;
+                case "NotChainPrecedence":
+                    violated |= activation && previous != null && roles.isTarget(previous) && roles.matches(event, previous);
+                    break;
+            }
+
+            previous = event;
+        }
+
+        public Constraint.State getState() {
+            return violated ? Constraint.State.PERMANENTLY_VIOLATED : Constraint.State.POSSIBLY_SATISFIED;
+        }
+    }
+
+    // CoExistence and Succession templates: the worse state of both halves
+    static class Conjunction extends ConstraintAutomaton {
+        private final ConstraintAutomaton first;
+        private final ConstraintAutomaton second;
+
+        Conjunction(Constraint c, ConstraintAutomaton first, ConstraintAutomaton second) {
+            super(c);
+            this.first = first;
+            this.second = second;
+        }
+
+        public void step(XEvent event) {
+            first.step(event);
+            second.step(event);
+        }
+
+        public Constraint.State getState() {
+            Constraint.State l = first.getState();
+            Constraint.State r = second.getState();
+            return rank(l) <= rank(r) ? l : r;
+        }
+
+        private static int rank(Constraint.State state) {
+            switch (state) {
+                case PERMANENTLY_VIOLATED:
+                    return 0;
+                case POSSIBLY_VIOLATED:
+                    return 1;
+                case POSSIBLY_SATISFIED:
+                    return 2;
+                default:
+                    return 3;
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package core.conformance;
+
+import declare.fnparser.BinaryExpression;
+import declare.fnparser.DataExpression;
+import declare.fnparser.DataFunction;
+import declare.fnparser.Token;
+import declare.fnparser.UnaryExpression;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * data condition of a declare constraint (parsed by DataExpressionParser) evaluated directly on events.
+ * variables with the first argument of the function (A.x) are read from the activation event,
+ * any other variable (B.x, T.x) from the target event
+ */
+public class DataCondition {
+    public static final DataCondition TRUE = new DataCondition(null, null);
+
+    private final DataExpression expression;
+    private final String activationVariable;
+
+    private DataCondition(DataExpression expression, String activationVariable) {
+        this.expression = expression;
+        this.activationVariable = activationVariable;
+    }
+
+    public static DataCondition of(DataFunction function) {
+        if (function == null || isTrue(function.getExpression()))
+            return TRUE;
+
+        return new DataCondition(function.getExpression(), function.getArgs().get(0));
+    }
+
+    public boolean isTrivial() {
+        return expression == null;
+    }
+
+    public boolean holds(XEvent event) {
+        return holds(event, event);
+    }
+
+    public boolean holds(XEvent activation, XEvent target) {
+        return expression == null || evaluate(expression, activation, target);
+    }
+
+    private boolean evaluate(DataExpression e, XEvent activation, XEvent target) {
+        String op = e.getNode().getValue().toLowerCase().replaceAll("\\s+", " ");
+
+        if (e instanceof BinaryExpression) {
+            DataExpression l = ((BinaryExpression) e).getLeft();
+            DataExpression r = ((BinaryExpression) e).getRight();
+
+            switch (op) {
+                case "and":
+                    return evaluate(l, activation, target) && evaluate(r, activation, target);
+                case "or":
+                    return evaluate(l, activation, target) || evaluate(r, activation, target);
+                case "is":
+                    return equal(value(l, activation, target), value(r, activation, target));
+                case "is not": {
+                    Object lv = value(l, activation, target);
+                    return lv != null && !equal(lv, value(r, activation, target));
+                }
+                case "in":
+                    return in(value(l, activation, target), r);
+                case "not in": {
+                    Object lv = value(l, activation, target);
+                    return lv != null && !in(lv, r);
+                }
+            }
+
+            if (e.getNode().getType() == Token.Type.Comparator)
+                return compare(op, value(l, activation, target), value(r, activation, target));
+        }
+
+        if (e instanceof UnaryExpression) {
+            DataExpression v = ((UnaryExpression) e).getValue();
+
+            switch (op) {
+                case "not":
+                    return !evaluate(v, activation, target);
+                case "same": {
+                    Object a = attribute(activation, v.getNode().getValue());
+                    return a != null && equal(a, attribute(target, v.getNode().getValue()));
+                }
+                case "different": {
+                    Object a = attribute(activation, v.getNode().getValue());
+                    Object t = attribute(target, v.getNode().getValue());
+                    return a != null && t != null && !equal(a, t);
+                }
+                case "exist":
+                    return attribute(activation, v.getNode().getValue()) != null;
+            }
+        }
+
+        if (isTrue(e))
+            return true;
+
+        throw new IllegalArgumentException("Condition is not supported by native evaluation: " + e);
+    }
+
+    private Object value(DataExpression e, XEvent activation, XEvent target) {
+        Token node = e.getNode();
+        switch (node.getType()) {
+            case Variable: {
+                int dot = node.getValue().indexOf('.');
+                String variable = node.getValue().substring(0, dot);
+                return attribute(variable.equals(activationVariable) ? activation : target, node.getValue().substring(dot + 1));
+            }
+            case Number:
+                return Double.parseDouble(node.getValue());
+            default:
+                return node.getValue();
+        }
+    }
+
+    private static Object attribute(XEvent event, String name) {
+        XAttribute attribute = event.getAttributes().get(name);
+        if (attribute instanceof XAttributeDiscrete)
+            return (double) ((XAttributeDiscrete) attribute).getValue();
+        if (attribute instanceof XAttributeContinuous)
+            return ((XAttributeContinuous) attribute).getValue();
+        if (attribute instanceof XAttributeBoolean)
+            return String.valueOf(((XAttributeBoolean) attribute).getValue());
+        if (attribute instanceof XAttributeLiteral)
+            return ((XAttributeLiteral) attribute).getValue();
+        return attribute == null ? null : attribute.toString();
+    }
+
+    private static boolean equal(Object l, Object r) {
+        if (l == null || r == null)
+            return false;
+        if (l instanceof Double && r instanceof Double)
+            return ((Double) l).doubleValue() == (Double) r;
+        return text(l).equals(text(r));
+    }
+
+    private static boolean in(Object value, DataExpression set) {
+        if (value == null)
+            return false;
+
+        String code = set.getNode().getValue();
+        Set<String> values = new HashSet<>(Arrays.asList(code.substring(1, code.length() - 1).split(",\\s*")));
+        return values.contains(text(value));
+    }
+
+    private static String text(Object value) {
+        if (value instanceof Double && (Double) value == Math.rint((Double) value))
+            return String.valueOf(((Double) value).longValue());
+        return String.valueOf(value);
+    }
+
+    private static boolean compare(String comparator, Object l, Object r) {
+        if (!(l instanceof Double) || !(r instanceof Double))
+            return false;
+
+        int c = Double.compare((Double) l, (Double) r);
+        switch (comparator) {
+            case "<":
+                return c < 0;
+            case "<=":
+                return c <= 0;
+            case ">":
+                return c > 0;
+            case ">=":
+                return c >= 0;
+            case "=":
+                return c == 0;
+            default:
+                throw new IllegalArgumentException("Unknown comparator: " + comparator);
+        }
+    }
+
+    private static boolean isTrue(DataExpression e) {
+        return e == null || e.getNode().getValue().equals("True[]");
+    }
+}
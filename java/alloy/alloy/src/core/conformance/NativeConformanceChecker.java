@@ -0,0 +1,61 @@
+package core.conformance;
+
+import declare.DeclareModel;
+import declare.DeclareParserException;
+import declare.lang.Constraint;
+import declare.lang.Statement;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * checks complete traces against all (data) constraints of a model without alloy.
+ * automata are compiled once per trace; compilation only wraps already parsed conditions
+ */
+public class NativeConformanceChecker {
+    private final List<Constraint> constraints = new ArrayList<>();
+
+    public NativeConformanceChecker(DeclareModel model) throws DeclareParserException {
+        constraints.addAll(model.getConstraints());
+        constraints.addAll(model.getDataConstraints());
+
+        // fail early on unsupported templates
+        for (Constraint c : constraints)
+            ConstraintAutomaton.compile(c);
+    }
+
+    public List<ConstraintAutomaton> compile() throws DeclareParserException {
+        List<ConstraintAutomaton> automata = new ArrayList<>(constraints.size());
+        for (Constraint c : constraints)
+            automata.add(ConstraintAutomaton.compile(c));
+        return automata;
+    }
+
+    // states of all constraints after the trace; complete = no more events will come
+    public Map<Constraint, Constraint.State> getStates(XTrace trace, boolean complete) throws DeclareParserException {
+        List<ConstraintAutomaton> automata = compile();
+        for (XEvent event : trace)
+            for (ConstraintAutomaton i : automata)
+                i.step(event);
+
+        Map<Constraint, Constraint.State> states = new LinkedHashMap<>();
+        for (ConstraintAutomaton i : automata)
+            states.put(i.getConstraint(), complete ? i.getFinalState() : i.getState());
+
+        return states;
+    }
+
+    // returns List of violated statements, same as Evaluator.checkCompliance
+    public List<Statement> check(XTrace trace) throws DeclareParserException {
+        List<Statement> violations = new ArrayList<>();
+        for (Map.Entry<Constraint, Constraint.State> i : getStates(trace, true).entrySet())
+            if (i.getValue() == Constraint.State.PERMANENTLY_VIOLATED)
+                violations.add(i.getKey().getStatement());
+
+        return violations;
+    }
+}
@@ -0,0 +1,8 @@
+package core.exceptions;
+
+// monitored case was dropped (capacity or idle timeout) while its trace was open; its state is lost
+public class CaseEvictedException extends Exception {
+    public CaseEvictedException(String caseId, String reason) {
+        super("case " + caseId + " was evicted (" + reason + "), send it again from its first event");
+    }
+}
@@ -0,0 +1,37 @@
+package core.helpers;
+
+import org.deckfour.xes.in.XParser;
+import org.deckfour.xes.model.XLog;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+// makes binary logs (.xesb, .xesb.gz) readable through XParserRegistry; registered by LogFiles
+public class BinaryLogParser extends XParser {
+    @Override
+    public String name() {
+        return "XES Binary";
+    }
+
+    @Override
+    public String description() {
+        return "Reads logs from compact binary columnar serializations";
+    }
+
+    @Override
+    public String author() {
+        return "AlloyToLog";
+    }
+
+    @Override
+    public boolean canParse(File file) {
+        return LogFiles.isBinary(file.getName());
+    }
+
+    @Override
+    public List<XLog> parse(InputStream is) throws Exception {
+        return Collections.singletonList(BinaryLogReader.readAll(is));
+    }
+}
@@ -0,0 +1,238 @@
+package core.helpers;
+
+import core.interfaces.TraceSink;
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.*;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static core.helpers.BinaryLogWriter.*;
+
+/*
+ * reads logs written by BinaryLogWriter (see there for the layout), block by block.
+ * gzipped files are detected by their first bytes
+ */
+public class BinaryLogReader {
+    private final DataInputStream in;
+    private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<Integer, XExtension> extensions = new HashMap<>();  // by key id
+    private XLog header;
+
+    public BinaryLogReader(String filename) throws IOException {
+        this(new FileInputStream(filename));
+    }
+
+    public BinaryLogReader(InputStream is) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(is, 1 << 16);
+        buffered.mark(2);
+        boolean gzip = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+
+        this.in = new DataInputStream(gzip ? new BufferedInputStream(new GZIPInputStream(buffered, 1 << 16), 1 << 16) : buffered);
+    }
+
+    public static XLog readAll(String filename) throws Exception {
+        return readAll(new FileInputStream(filename));
+    }
+
+    public static XLog readAll(InputStream is) throws Exception {
+        List<XTrace> traces = new ArrayList<>();
+        XLog log = new BinaryLogReader(is).read(traces::add);
+        log.addAll(traces);
+        return log;
+    }
+
+    // log header without traces; may be called before read
+    public XLog readHeader() throws Exception {
+        if (header != null)
+            return header;
+
+        if (in.readInt() != magic)
+            throw new IOException("Not a binary log");
+
+        int fileVersion = in.readByte();
+        if (fileVersion != version)
+            throw new IOException("Unsupported binary log version " + fileVersion);
+
+        readDictionary();
+
+        header = factory.createLog();
+        long extensionCount = readVarLong(in);
+        for (long i = 0; i < extensionCount; ++i) {
+            readString(in);  // name
+            readString(in);  // prefix
+            XExtension extension = XExtensionManager.instance().getByUri(new URI(readString(in)));
+            if (extension != null)
+                header.getExtensions().add(extension);
+        }
+
+        header.getGlobalTraceAttributes().addAll(readAttributes().values());
+        header.getGlobalEventAttributes().addAll(readAttributes().values());
+
+        long classifierCount = readVarLong(in);
+        for (long i = 0; i < classifierCount; ++i) {
+            String name = readString(in);
+            String[] keys = new String[(int) readVarLong(in)];
+            for (int j = 0; j < keys.length; ++j)
+                keys[j] = readString(in);
+
+            header.getClassifiers().add(new XEventAttributeClassifier(name, keys));
+        }
+
+        header.getAttributes().putAll(readAttributes());
+        return header;
+    }
+
+    // streams all traces to the sink; returns the log header
+    public XLog read(TraceSink sink) throws Exception {
+        try {
+            readHeader();
+            int traces;
+            while ((traces = (int) readVarLong(in)) != 0)
+                for (XTrace trace : readBlock(traces))
+                    sink.accept(trace);
+
+            return header;
+        } finally {
+            in.close();
+        }
+    }
+
+    private List<XTrace> readBlock(int traceCount) throws IOException {
+        readDictionary();
+
+        int[] sizes = new int[traceCount];
+        int rows = 0;
+        for (int i = 0; i < traceCount; ++i) {
+            sizes[i] = (int) readVarLong(in);
+            rows += sizes[i];
+        }
+
+        List<XTrace> traces = new ArrayList<>(traceCount);
+        for (int i = 0; i < traceCount; ++i)
+            traces.add(factory.createTrace(readAttributes()));
+
+        XAttributeMap[] events = new XAttributeMap[rows];
+        for (int i = 0; i < rows; ++i)
+            events[i] = factory.createAttributeMap();
+
+        long columns = readVarLong(in);
+        for (long i = 0; i < columns; ++i)
+            readColumn(events);
+
+        int row = 0;
+        for (int i = 0; i < traceCount; ++i)
+            for (int j = 0; j < sizes[i]; ++j)
+                traces.get(i).add(factory.createEvent(events[row++]));
+
+        return traces;
+    }
+
+    private void readColumn(XAttributeMap[] events) throws IOException {
+        int keyId = (int) readVarLong(in);
+        byte type = in.readByte();
+        boolean nested = (type & nestedFlag) != 0;
+        type &= ~nestedFlag;
+
+        byte[] bitmap = null;
+        if (!in.readBoolean()) {
+            bitmap = new byte[(events.length + 7) / 8];
+            in.readFully(bitmap);
+        }
+
+        List<XAttribute> values = new ArrayList<>();
+        long previous = 0;
+        for (int row = 0; row < events.length; ++row) {
+            if (bitmap != null && (bitmap[row >> 3] & (1 << (row & 7))) == 0)
+                continue;
+
+            XAttribute attribute = readValue(keyId, type, previous);
+            if (type == typeDate)
+                previous = ((XAttributeTimestamp) attribute).getValueMillis();
+
+            events[row].put(attribute.getKey(), attribute);
+            values.add(attribute);
+        }
+
+        if (nested)
+            for (XAttribute i : values)
+                i.getAttributes().putAll(readAttributes());
+    }
+
+    private XAttributeMap readAttributes() throws IOException {
+        XAttributeMap attributes = factory.createAttributeMap();
+        long count = readVarLong(in);
+        for (long i = 0; i < count; ++i) {
+            int keyId = (int) readVarLong(in);
+            XAttribute attribute = readValue(keyId, in.readByte(), 0);
+            attribute.getAttributes().putAll(readAttributes());
+            attributes.put(attribute.getKey(), attribute);
+        }
+
+        return attributes;
+    }
+
+    private XAttribute readValue(int keyId, byte type, long previous) throws IOException {
+        String key = dictionary.get(keyId);
+        XExtension extension = getExtension(keyId, key);
+        switch (type) {
+            case typeDate: return factory.createAttributeTimestamp(key, previous + unzigzag(readVarLong(in)), extension);
+            case typeInt: return factory.createAttributeDiscrete(key, unzigzag(readVarLong(in)), extension);
+            case typeFloat: return factory.createAttributeContinuous(key, in.readDouble(), extension);
+            case typeBoolean: return factory.createAttributeBoolean(key, in.readBoolean(), extension);
+            default: return factory.createAttributeLiteral(key, dictionary.get((int) readVarLong(in)), extension);
+        }
+    }
+
+    // by key prefix, as XesXmlParser does
+    private XExtension getExtension(int keyId, String key) {
+        if (extensions.containsKey(keyId))
+            return extensions.get(keyId);
+
+        XExtension extension = null;
+        int colon = key.indexOf(':');
+        if (colon > 0 && colon < key.length() - 1)
+            extension = XExtensionManager.instance().getByPrefix(key.substring(0, colon));
+
+        extensions.put(keyId, extension);
+        return extension;
+    }
+
+    private void readDictionary() throws IOException {
+        long count = readVarLong(in);
+        for (long i = 0; i < count; ++i)
+            dictionary.add(readString(in));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
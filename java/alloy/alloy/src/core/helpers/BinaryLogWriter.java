@@ -0,0 +1,267 @@
+package core.helpers;
+
+import core.interfaces.LogWriter;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.*;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * writes log in compact binary form (.xesb), trace by trace like XesStreamWriter.
+ *
+ * file:   magic, version, header, blocks, 0
+ * header: dictionary delta, extensions, global trace and event attributes, classifiers, log attributes
+ * block:  trace count, dictionary delta, event count of each trace, trace attributes,
+ *         event attributes as columns - one column per (key, type) with presence bitmap and values of present rows
+ *
+ * all strings (keys, activity names, literal values) are ids in a dictionary which grows block by block.
+ * timestamps are stored as difference to the previous value in the column, integers as zigzag varints.
+ * traces are renamed to 'Case No. N' in order of arrival (see setRenameTraces)
+ */
+public class BinaryLogWriter implements LogWriter {
+    static final int magic = 0x58455342;  // XESB
+    static final int version = 1;
+    static final int blockTraces = 1024;
+
+    static final byte typeString = 0;
+    static final byte typeDate = 1;
+    static final byte typeInt = 2;
+    static final byte typeFloat = 3;
+    static final byte typeBoolean = 4;
+    static final byte nestedFlag = (byte) 0x80;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newEntries = new ArrayList<>();
+    private final List<XTrace> block = new ArrayList<>(blockTraces);
+    private int count = 0;
+    private boolean renameTraces = true;
+
+    public BinaryLogWriter(String filename, XLog header) throws IOException {
+        this(filename, header, filename.endsWith(".gz"));
+    }
+
+    public BinaryLogWriter(String filename, XLog header, boolean gzip) throws IOException {
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(filename), 1 << 16);
+        if (gzip)
+            os = new GZIPOutputStream(os, 1 << 16);
+
+        this.out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        out.writeInt(magic);
+        out.writeByte(version);
+        writeHeader(header);
+    }
+
+    private void writeHeader(XLog header) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+
+        writeVarLong(body, header.getExtensions().size());
+        for (XExtension ext : header.getExtensions()) {
+            writeString(body, ext.getName());
+            writeString(body, ext.getPrefix());
+            writeString(body, ext.getUri().toString());
+        }
+
+        writeAttributes(body, header.getGlobalTraceAttributes());
+        writeAttributes(body, header.getGlobalEventAttributes());
+
+        writeVarLong(body, header.getClassifiers().size());
+        for (XEventClassifier classifier : header.getClassifiers()) {
+            writeString(body, classifier.name());
+            writeVarLong(body, classifier.getDefiningAttributeKeys().length);
+            for (String key : classifier.getDefiningAttributeKeys())
+                writeString(body, key);
+        }
+
+        writeAttributes(body, header.getAttributes().values());
+        flushDictionary();
+        bytes.writeTo(out);
+    }
+
+    @Override
+    public synchronized void accept(XTrace trace) throws IOException {
+        long start = Telemetry.start();
+        ++count;
+        if (renameTraces)
+            trace.getAttributes().put("concept:name", new XAttributeLiteralImpl("concept:name", "Case No. " + count));
+
+        block.add(trace);
+        if (block.size() == blockTraces)
+            writeBlock();
+
+        Telemetry.stop("serialization", start);
+        Telemetry.count("traces", 1);
+    }
+
+    @Override
+    public synchronized int getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void setRenameTraces(boolean renameTraces) {
+        this.renameTraces = renameTraces;
+    }
+
+    private void writeBlock() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+
+        List<XEvent> events = new ArrayList<>();
+        for (XTrace trace : block) {
+            writeVarLong(body, trace.size());
+            events.addAll(trace);
+        }
+
+        for (XTrace trace : block)
+            writeAttributes(body, trace.getAttributes().values());
+
+        // columns in order of first appearance
+        Map<String, Column> columns = new LinkedHashMap<>();
+        for (int row = 0; row < events.size(); ++row)
+            for (XAttribute attribute : events.get(row).getAttributes().values()) {
+                byte type = getType(attribute);
+                columns.computeIfAbsent(type + attribute.getKey(), i -> new Column(attribute.getKey(), type)).add(row, attribute);
+            }
+
+        writeVarLong(body, columns.size());
+        for (Column column : columns.values())
+            column.write(body, events.size());
+
+        writeVarLong(out, block.size());
+        flushDictionary();
+        bytes.writeTo(out);
+        block.clear();
+    }
+
+    // strings added to the dictionary since the previous flush
+    private void flushDictionary() throws IOException {
+        writeVarLong(out, newEntries.size());
+        for (String i : newEntries)
+            writeString(out, i);
+
+        newEntries.clear();
+    }
+
+    private int id(String value) {
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.put(value, id);
+            newEntries.add(value);
+        }
+
+        return id;
+    }
+
+    // row-wise form for header, trace and nested attributes
+    private void writeAttributes(DataOutputStream body, Collection<XAttribute> attributes) throws IOException {
+        writeVarLong(body, attributes.size());
+        for (XAttribute attribute : attributes) {
+            byte type = getType(attribute);
+            writeVarLong(body, id(attribute.getKey()));
+            body.writeByte(type);
+            writeValue(body, attribute, type, 0);
+            writeAttributes(body, attribute.getAttributes().values());
+        }
+    }
+
+    private void writeValue(DataOutputStream body, XAttribute attribute, byte type, long previous) throws IOException {
+        switch (type) {
+            case typeDate: writeVarLong(body, zigzag(((XAttributeTimestamp) attribute).getValueMillis() - previous)); break;
+            case typeInt: writeVarLong(body, zigzag(((XAttributeDiscrete) attribute).getValue())); break;
+            case typeFloat: body.writeDouble(((XAttributeContinuous) attribute).getValue()); break;
+            case typeBoolean: body.writeBoolean(((XAttributeBoolean) attribute).getValue()); break;
+            default: writeVarLong(body, id(attribute.toString()));
+        }
+    }
+
+    // same mapping as XesStreamWriter: unknown attribute types are written as strings
+    private static byte getType(XAttribute attribute) {
+        if (attribute instanceof XAttributeTimestamp)
+            return typeDate;
+        if (attribute instanceof XAttributeDiscrete)
+            return typeInt;
+        if (attribute instanceof XAttributeContinuous)
+            return typeFloat;
+        if (attribute instanceof XAttributeBoolean)
+            return typeBoolean;
+        return typeString;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!block.isEmpty())
+            writeBlock();
+
+        writeVarLong(out, 0);
+        out.close();
+    }
+
+    private class Column {
+        final String key;
+        final byte type;
+        final BitSet present = new BitSet();
+        final List<XAttribute> values = new ArrayList<>();
+        boolean nested = false;
+
+        Column(String key, byte type) {
+            this.key = key;
+            this.type = type;
+        }
+
+        void add(int row, XAttribute attribute) {
+            present.set(row);
+            values.add(attribute);
+            nested |= !attribute.getAttributes().isEmpty();
+        }
+
+        void write(DataOutputStream body, int rows) throws IOException {
+            writeVarLong(body, id(key));
+            body.writeByte(nested ? type | nestedFlag : type);
+
+            boolean all = values.size() == rows;
+            body.writeBoolean(all);
+            if (!all) {
+                byte[] bitmap = Arrays.copyOf(present.toByteArray(), (rows + 7) / 8);
+                body.write(bitmap);
+            }
+
+            long previous = 0;
+            for (XAttribute i : values) {
+                writeValue(body, i, type, previous);
+                if (type == typeDate)
+                    previous = ((XAttributeTimestamp) i).getValueMillis();
+            }
+
+            if (nested)
+                for (XAttribute i : values)
+                    writeAttributes(body, i.getAttributes().values());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package core.helpers;
+
+import core.interfaces.LogWriter;
+import core.interfaces.TraceSink;
+import org.deckfour.xes.in.XParserRegistry;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlSerializer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/*
+ * log format is chosen by file name: .xesb (.xesb.gz) - binary, see BinaryLogWriter; anything else - xes.
+ * .gz - gzip compressed
+ */
+public class LogFiles {
+    static {
+        XParserRegistry.instance().register(new BinaryLogParser());
+    }
+
+    public static boolean isBinary(String filename) {
+        String name = filename.toLowerCase();
+        return name.endsWith(".xesb") || name.endsWith(".xesb.gz");
+    }
+
+    public static LogWriter openWriter(String filename, XLog header, boolean gzip) throws IOException {
+        return isBinary(filename) ? new BinaryLogWriter(filename, header, gzip) : new XesStreamWriter(filename, header, gzip);
+    }
+
+    // whole log in memory; traces are renamed to 'Case No. N' by xes serialization as well
+    public static void write(String filename, XLog log) throws IOException {
+        if (isBinary(filename)) {
+            try (LogWriter writer = openWriter(filename, log, filename.endsWith(".gz"))) {
+                for (XTrace trace : log)
+                    writer.accept(trace);
+            }
+
+            return;
+        }
+
+        try (FileOutputStream fileOS = new FileOutputStream(filename)) {
+            new XesXmlSerializer().serialize(log, fileOS);
+        }
+    }
+
+    public static XLog read(String filename, int threads) throws Exception {
+        return isBinary(filename) ? BinaryLogReader.readAll(filename) : XesStreamReader.readAll(filename, threads);
+    }
+
+    // streams traces in file order; returns the log header
+    public static XLog read(String filename, int threads, TraceSink sink) throws Exception {
+        return isBinary(filename) ? new BinaryLogReader(filename).read(sink) : new XesStreamReader(filename, threads).read(sink);
+    }
+
+    // xes <-> binary, format of each side by its name; trace names are kept. returns number of traces
+    public static int convert(String from, String to, int threads) throws Exception {
+        if (isBinary(from)) {
+            BinaryLogReader reader = new BinaryLogReader(from);
+            try (LogWriter writer = openWriter(to, reader.readHeader(), to.endsWith(".gz"))) {
+                writer.setRenameTraces(false);
+                reader.read(writer);
+                return writer.getCount();
+            }
+        }
+
+        XesStreamReader reader = new XesStreamReader(from, threads);
+        try (LogWriter writer = openWriter(to, reader.readHeader(), to.endsWith(".gz"))) {
+            writer.setRenameTraces(false);
+            reader.read(writer);
+            return writer.getCount();
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package core.helpers;
+
+import core.interfaces.TraceSink;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.*;
+import org.deckfour.xes.nikefs2.NikeFS2SwapFileManager;
+import org.deckfour.xes.util.XAttributeUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static core.helpers.BinaryLogWriter.*;
+
+/*
+ * out-of-core trace store. traces are encoded into a NikeFS2 swap file which is memory-mapped
+ * in segments of 256 MB, so a log larger than the heap lives in the page cache; the heap holds
+ * only trace offsets and the dictionary of attribute keys and short literal values.
+ *
+ * one thread appends at a time (append is synchronized), any number of threads read without locks:
+ * a trace is published by the volatile size after its bytes are written, reads are absolute gets on shared buffers.
+ * traces are read-only views; events are decoded on every access, trace attributes once per view.
+ *
+ * trace record: int n, int[n + 1] event offsets (from record start), trace attributes, events.
+ * attributes:   varint count, then key id, type, value and nested attributes of each
+ */
+public class MappedLog implements TraceSink, AutoCloseable {
+    private static final int segmentBits = 28;
+    private static final int segmentSize = 1 << segmentBits;
+    private static final int maxDictionaryValue = 64;  // longer literal values are stored inline
+    private static final int maxDictionary = 1 << 20;
+    private static final byte typeInline = 5;
+
+    private final XFactory factory = new XFactoryNaiveImpl();  // decoded events are plain heap objects
+    private final File file;
+    private final RandomAccessFile raf;
+
+    // published to readers; replaced (never modified in place below size) when they grow
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long[] offsets = new long[1024];
+    private volatile String[] strings = new String[256];
+    private volatile XExtension[] extensions = new XExtension[256];  // by key id
+    private volatile int size = 0;
+
+    // writer state
+    private final Map<String, Integer> ids = new HashMap<>();
+    private long end = 0;
+
+    public MappedLog(File file) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+    }
+
+    public static MappedLog create() throws IOException {
+        return new MappedLog(NikeFS2SwapFileManager.createSwapFile());
+    }
+
+    @Override
+    public void accept(XTrace trace) throws IOException {
+        append(trace);
+    }
+
+    public synchronized void append(XTrace trace) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        writeAttributes(body, trace.getAttributes().values());
+
+        int[] starts = new int[trace.size() + 1];
+        for (int i = 0; i < trace.size(); ++i) {
+            starts[i] = body.size();
+            writeAttributes(body, trace.get(i).getAttributes().values());
+        }
+        starts[trace.size()] = body.size();
+
+        int head = 4 * (starts.length + 1);
+        int length = head + body.size();
+        if (length > segmentSize)
+            throw new IOException("Trace of " + length + " bytes does not fit into a segment");
+
+        if ((end & (segmentSize - 1)) + length > segmentSize)  // records do not cross segments
+            end = ((end >>> segmentBits) + 1) << segmentBits;
+
+        ByteBuffer segment = getSegmentForWrite((int) (end >>> segmentBits));
+        int position = (int) (end & (segmentSize - 1));
+        segment.putInt(position, trace.size());
+        for (int i = 0; i < starts.length; ++i)
+            segment.putInt(position + 4 * (i + 1), head + starts[i]);
+        ByteBuffer view = segment.duplicate();
+        view.position(position + head);
+        view.put(bytes.toByteArray());
+
+        long[] current = offsets;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            offsets = current;
+        }
+
+        current[size] = end;
+        end += length;
+        size = size + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public XTrace get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Trace " + index + " of " + size);
+
+        long offset = offsets[index];
+        return new MappedTrace(segments[(int) (offset >>> segmentBits)], (int) (offset & (segmentSize - 1)));
+    }
+
+    // log view of the store; new traces may be appended through it
+    public XLog asLog(XLog header) {
+        return new MappedXLog(header);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segments = new MappedByteBuffer[0];
+        size = 0;
+        raf.close();
+        file.delete();
+    }
+
+    private ByteBuffer getSegmentForWrite(int index) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length)
+            return current[index];
+
+        MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i <= index; ++i)
+            grown[i] = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) i << segmentBits, segmentSize);
+
+        segments = grown;
+        return grown[index];
+    }
+
+    private void writeAttributes(DataOutputStream body, Collection<XAttribute> attributes) throws IOException {
+        writeVarLong(body, attributes.size());
+        for (XAttribute attribute : attributes) {
+            writeVarLong(body, keyId(attribute.getKey()));
+            if (attribute instanceof XAttributeTimestamp) {
+                body.writeByte(typeDate);
+                writeVarLong(body, zigzag(((XAttributeTimestamp) attribute).getValueMillis()));
+            } else if (attribute instanceof XAttributeDiscrete) {
+                body.writeByte(typeInt);
+                writeVarLong(body, zigzag(((XAttributeDiscrete) attribute).getValue()));
+            } else if (attribute instanceof XAttributeContinuous) {
+                body.writeByte(typeFloat);
+                body.writeDouble(((XAttributeContinuous) attribute).getValue());
+            } else if (attribute instanceof XAttributeBoolean) {
+                body.writeByte(typeBoolean);
+                body.writeBoolean(((XAttributeBoolean) attribute).getValue());
+            } else {
+                String value = attribute.toString();
+                if (value.length() <= maxDictionaryValue && (ids.containsKey(value) || ids.size() < maxDictionary)) {
+                    body.writeByte(typeString);
+                    writeVarLong(body, id(value));
+                } else {
+                    body.writeByte(typeInline);
+                    writeString(body, value);
+                }
+            }
+
+            writeAttributes(body, attribute.getAttributes().values());
+        }
+    }
+
+    private int keyId(String key) {
+        int id = id(key);
+        if (extensions[id] == null) {  // extension by key prefix, as XesXmlParser does
+            int colon = key.indexOf(':');
+            if (colon > 0 && colon < key.length() - 1)
+                extensions[id] = XExtensionManager.instance().getByPrefix(key.substring(0, colon));
+        }
+
+        return id;
+    }
+
+    private int id(String value) {
+        Integer id = ids.get(value);
+        if (id != null)
+            return id;
+
+        id = ids.size();
+        ids.put(value, id);
+        if (id == strings.length) {
+            extensions = Arrays.copyOf(extensions, id * 2);
+            strings = Arrays.copyOf(strings, id * 2);
+        }
+
+        strings[id] = value;
+        return id;
+    }
+
+    private XAttributeMap readAttributes(Cursor c) {
+        XAttributeMap attributes = factory.createAttributeMap();
+        long count = c.varLong();
+        for (long i = 0; i < count; ++i) {
+            int keyId = (int) c.varLong();
+            String key = strings[keyId];
+            XExtension extension = extensions[keyId];
+            XAttribute attribute;
+            switch (c.buffer.get(c.position++)) {
+                case typeDate: attribute = factory.createAttributeTimestamp(key, unzigzag(c.varLong()), extension); break;
+                case typeInt: attribute = factory.createAttributeDiscrete(key, unzigzag(c.varLong()), extension); break;
+                case typeFloat: attribute = factory.createAttributeContinuous(key, c.buffer.getDouble((c.position += 8) - 8), extension); break;
+                case typeBoolean: attribute = factory.createAttributeBoolean(key, c.buffer.get(c.position++) != 0, extension); break;
+                case typeInline: attribute = factory.createAttributeLiteral(key, c.string(), extension); break;
+                default: attribute = factory.createAttributeLiteral(key, strings[(int) c.varLong()], extension);
+            }
+
+            XAttributeMap nested = readAttributes(c);
+            if (!nested.isEmpty())
+                attribute.setAttributes(nested);
+
+            attributes.put(key, attribute);
+        }
+
+        return attributes;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // read position in a shared buffer; one per decoding call, so readers do not interfere
+    private static class Cursor {
+        final ByteBuffer buffer;
+        int position;
+
+        Cursor(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long varLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+
+        String string() {
+            byte[] bytes = new byte[(int) varLong()];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.get(bytes);
+            position += bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private class MappedTrace extends AbstractList<XEvent> implements XTrace {
+        private final ByteBuffer segment;
+        private final int base;
+        private XAttributeMap attributes;
+
+        MappedTrace(ByteBuffer segment, int base) {
+            this.segment = segment;
+            this.base = base;
+        }
+
+        @Override
+        public XEvent get(int index) {
+            if (index < 0 || index >= size())
+                throw new IndexOutOfBoundsException("Event " + index + " of " + size());
+
+            return factory.createEvent(readAttributes(new Cursor(segment, base + segment.getInt(base + 4 * (index + 1)))));
+        }
+
+        @Override
+        public int size() {
+            return segment.getInt(base);
+        }
+
+        @Override
+        public synchronized XAttributeMap getAttributes() {
+            if (attributes == null)
+                attributes = readAttributes(new Cursor(segment, base + 4 * (size() + 2)));
+
+            return attributes;
+        }
+
+        @Override
+        public synchronized void setAttributes(XAttributeMap attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public Set<XExtension> getExtensions() {
+            return XAttributeUtils.extractExtensions(getAttributes());
+        }
+
+        // heap copy
+        @Override
+        public Object clone() {
+            XTrace copy = factory.createTrace((XAttributeMap) getAttributes().clone());
+            copy.addAll(this);
+            return copy;
+        }
+    }
+
+    private class MappedXLog extends AbstractList<XTrace> implements XLog {
+        private final XLog header;
+
+        MappedXLog(XLog header) {
+            this.header = header;
+        }
+
+        @Override
+        public XTrace get(int index) {
+            return MappedLog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return MappedLog.this.size();
+        }
+
+        @Override
+        public boolean add(XTrace trace) {
+            try {
+                append(trace);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public List<XEventClassifier> getClassifiers() {
+            return header.getClassifiers();
+        }
+
+        @Override
+        public List<XAttribute> getGlobalTraceAttributes() {
+            return header.getGlobalTraceAttributes();
+        }
+
+        @Override
+        public List<XAttribute> getGlobalEventAttributes() {
+            return header.getGlobalEventAttributes();
+        }
+
+        @Override
+        public XAttributeMap getAttributes() {
+            return header.getAttributes();
+        }
+
+        @Override
+        public void setAttributes(XAttributeMap attributes) {
+            header.setAttributes(attributes);
+        }
+
+        @Override
+        public Set<XExtension> getExtensions() {
+            return header.getExtensions();
+        }
+
+        // heap copy
+        @Override
+        public Object clone() {
+            XLog copy = (XLog) header.clone();
+            for (XTrace trace : this)
+                copy.add((XTrace) trace.clone());
+
+            return copy;
+        }
+    }
+}
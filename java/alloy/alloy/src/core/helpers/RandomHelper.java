@@ -1,15 +1,16 @@
 package core.helpers;
 
+import core.RunContext;
+
 import java.util.UUID;
 
 /**
  * Created by Vasiliy on 2017-10-25.
  */
 public class RandomHelper {
-    static int start = 99999;
-
+    // numbers are unique within the current run (RunContext), runs in other threads do not interfere
     public static int getNext() {
-        return ++start;
+        return RunContext.current().nextNumber();
     }
 
     public static String getName() {
@@ -25,7 +26,7 @@ public class RandomHelper {
             }
         }
 
-        sb.append("_r").append(++start);
+        sb.append("_r").append(getNext());
         return sb.toString();
     }
 }
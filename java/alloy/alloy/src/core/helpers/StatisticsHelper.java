@@ -1,6 +1,7 @@
 package core.helpers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +13,7 @@ public class StatisticsHelper {
     static Map<Integer, Integer> lengthsMap = new HashMap<>();
     static List<Integer> lengths = new ArrayList<>();
     public static int trace;
-    public static List<Long> time = new ArrayList<>();
+    public static List<Long> time = Collections.synchronizedList(new ArrayList<>());
 
     public static void printTime() {
         for (Long i : time) {
@@ -20,14 +21,14 @@ public class StatisticsHelper {
         }
     }
 
-    public static void addLength(int a) {
+    public static synchronized void addLength(int a) {
         if (!lengthsMap.containsKey(a))
             lengthsMap.put(a, 0);
         lengthsMap.put(a, lengthsMap.get(a) + 1);
         lengths.add(a);
     }
 
-    public static void print() {
+    public static synchronized void print() {
         int total = 0;
         int traces = 0;
         for (Integer i : lengthsMap.keySet()) {
@@ -0,0 +1,172 @@
+package core.helpers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * per-phase timings and counters of a run.
+ * phases: encode, parse, codegen, alloy_parse, translation, solve, enumeration, extraction, serialization, xes_read;
+ * counters: solutions, traces, discarded solutions (even length distribution), kodkod variables and clauses.
+ * report is written as json or prometheus text (by file extension .prom) or served on a local port.
+ * numbers are process-wide: runs executed at the same time (GenerationServer) are summed into one report
+ */
+public class Telemetry {
+    private static final Map<String, Phase> phases = new LinkedHashMap<>();
+    private static final Map<String, Long> counters = new LinkedHashMap<>();
+    private static long runStart = System.nanoTime();
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    // adds time passed since 'start' to the phase; returns current time to chain consecutive phases
+    public static long stop(String phase, long start) {
+        long now = System.nanoTime();
+        record(phase, now - start);
+        return now;
+    }
+
+    public static void record(String phase, long nanos) {
+        synchronized (phases) {
+            phases.computeIfAbsent(phase, i -> new Phase()).add(nanos);
+        }
+    }
+
+    public static void count(String counter, long n) {
+        synchronized (counters) {
+            counters.merge(counter, n, Long::sum);
+        }
+    }
+
+    public static void reset() {
+        synchronized (phases) {
+            phases.clear();
+        }
+
+        synchronized (counters) {
+            counters.clear();
+        }
+
+        runStart = System.nanoTime();
+    }
+
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"total_ms\": ").append(ms(System.nanoTime() - runStart)).append(",\n  \"phases\": {");
+        String separator = "\n";
+        synchronized (phases) {
+            for (Map.Entry<String, Phase> i : phases.entrySet()) {
+                Phase p = i.getValue();
+                sb.append(separator).append("    \"").append(i.getKey()).append("\": {\"count\": ").append(p.count)
+                        .append(", \"total_ms\": ").append(ms(p.total)).append(", \"max_ms\": ").append(ms(p.max)).append("}");
+                separator = ",\n";
+            }
+        }
+
+        sb.append("\n  },\n  \"counters\": {");
+        separator = "\n";
+        synchronized (counters) {
+            for (Map.Entry<String, Long> i : counters.entrySet()) {
+                sb.append(separator).append("    \"").append(i.getKey()).append("\": ").append(i.getValue());
+                separator = ",\n";
+            }
+        }
+
+        return sb.append("\n  },\n  \"solutions_per_second\": ").append(format(getSolutionsPerSecond())).append("\n}\n").toString();
+    }
+
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE generator_phase_seconds_total counter\n");
+        sb.append("# TYPE generator_phase_calls_total counter\n");
+        synchronized (phases) {
+            for (Map.Entry<String, Phase> i : phases.entrySet()) {
+                sb.append("generator_phase_seconds_total{phase=\"").append(i.getKey()).append("\"} ").append(format(i.getValue().total / 1e9)).append("\n");
+                sb.append("generator_phase_calls_total{phase=\"").append(i.getKey()).append("\"} ").append(i.getValue().count).append("\n");
+            }
+        }
+
+        synchronized (counters) {
+            for (Map.Entry<String, Long> i : counters.entrySet()) {
+                sb.append("# TYPE generator_").append(i.getKey()).append("_total counter\n");
+                sb.append("generator_").append(i.getKey()).append("_total ").append(i.getValue()).append("\n");
+            }
+        }
+
+        sb.append("# TYPE generator_solutions_per_second gauge\n");
+        sb.append("generator_solutions_per_second ").append(format(getSolutionsPerSecond())).append("\n");
+        return sb.toString();
+    }
+
+    public static void write(String filename) {
+        IOHelper.writeAllText(filename, filename.endsWith(".prom") ? toPrometheus() : toJson());
+    }
+
+    // /metrics - prometheus text, /report - json; bound to localhost only
+    public static HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        register(server);
+        server.setExecutor(null);
+        server.start();
+        return server;
+    }
+
+    public static void register(HttpServer server) {
+        server.createContext("/metrics", exchange -> respond(exchange, toPrometheus(), "text/plain; version=0.0.4"));
+        server.createContext("/report", exchange -> respond(exchange, toJson(), "application/json"));
+    }
+
+    // solutions enumerated and extracted per second of enumeration + extraction time
+    private static double getSolutionsPerSecond() {
+        long solutions;
+        synchronized (counters) {
+            solutions = counters.getOrDefault("solutions", 0L);
+        }
+
+        long nanos = 0;
+        synchronized (phases) {
+            for (String i : new String[]{"enumeration", "extraction"})
+                if (phases.containsKey(i))
+                    nanos += phases.get(i).total;
+        }
+
+        return nanos == 0 ? 0 : solutions / (nanos / 1e9);
+    }
+
+    private static void respond(HttpExchange exchange, String body, String contentType) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static String ms(long nanos) {
+        return format(nanos / 1e6);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static class Phase {
+        long count;
+        long total;
+        long max;
+
+        void add(long nanos) {
+            ++count;
+            total += nanos;
+            max = Math.max(max, nanos);
+        }
+    }
+}
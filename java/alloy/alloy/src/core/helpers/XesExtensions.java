@@ -0,0 +1,29 @@
+package core.helpers;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XSemanticExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * standard xes extensions (lifecycle, org, time, concept, semantic) declared in every written log.
+ * these are the in-memory singletons which XExtensionManager registers for itself,
+ * so writing or reading a log needs no definition download
+ */
+public class XesExtensions {
+    private static final List<XExtension> standard = Collections.unmodifiableList(List.of(
+            XLifecycleExtension.instance(),
+            XOrganizationalExtension.instance(),
+            XTimeExtension.instance(),
+            XConceptExtension.instance(),
+            XSemanticExtension.instance()));
+
+    public static List<XExtension> getStandard() {
+        return standard;
+    }
+}
@@ -0,0 +1,435 @@
+package core.helpers;
+
+import core.interfaces.TraceSink;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.util.XsDateTimeConversion;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * reads XES log trace by trace. the file is split at <trace> boundaries by a byte scanner,
+ * traces are decoded on several threads and handed to the sink in file order.
+ * at most threads * 4 traces are kept in memory; the log header (extensions, globals,
+ * classifiers, log attributes) is parsed by XesXmlParser and returned without traces
+ */
+public class XesStreamReader {
+    private static final byte[] traceOpen = "<trace".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] traceClose = "</trace>".getBytes(StandardCharsets.US_ASCII);
+    private static final int blockSize = 1 << 20;
+
+    private final String filename;
+    private final int threads;
+    private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+    private final ThreadLocal<XsDateTimeConversion> dates = ThreadLocal.withInitial(XsDateTimeConversion::new);
+
+    public XesStreamReader(String filename, int threads) {
+        this.filename = filename;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static XLog readAll(String filename, int threads) throws Exception {
+        List<XTrace> traces = new ArrayList<>();
+        XLog log = new XesStreamReader(filename, threads).read(traces::add);
+        log.addAll(traces);
+        return log;
+    }
+
+    // streams all traces to the sink; returns the log header
+    public XLog read(TraceSink sink) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "xes-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Deque<Future<XTrace>> pending = new ArrayDeque<>();
+        try (InputStream is = open()) {
+            byte[] header = split(is, chunk -> {
+                pending.add(pool.submit(() -> parseTrace(chunk)));
+                if (pending.size() >= threads * 4)
+                    sink.accept(pending.poll().get());
+            });
+
+            while (!pending.isEmpty())
+                sink.accept(pending.poll().get());
+
+            return parseHeader(header);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // log header only; the file is read up to the first trace
+    public XLog readHeader() throws Exception {
+        try (InputStream is = open()) {
+            byte[] data = new byte[blockSize];
+            int length = 0;
+            int read;
+            while ((read = is.read(data, length, data.length - length)) != -1) {
+                length += read;
+                int start = indexOfTraceStart(data, length, length - read - traceOpen.length);
+                if (start >= 0)
+                    return parseHeader(Arrays.copyOf(data, start));
+
+                if (length == data.length)
+                    data = Arrays.copyOf(data, data.length * 2);
+            }
+
+            return parseHeader(Arrays.copyOf(data, length));
+        }
+    }
+
+    private InputStream open() throws IOException {
+        InputStream is = new FileInputStream(filename);
+        if (filename.endsWith(".gz"))
+            is = new GZIPInputStream(is, blockSize);
+        return new BufferedInputStream(is, blockSize);
+    }
+
+    /*
+     * passes every <trace>...</trace> element to the consumer and returns everything before the first trace.
+     * trace elements do not nest, so the first </trace> after <trace closes it
+     */
+    private byte[] split(InputStream is, ChunkConsumer consumer) throws Exception {
+        byte[] data = new byte[blockSize];
+        int length = 0;
+        int scanFrom = 0;
+        int traceStart = -1;
+        byte[] header = null;
+
+        int read;
+        while ((read = is.read(data, length, data.length - length)) != -1 || length > 0 && scanFrom < length) {
+            if (read > 0)
+                length += read;
+
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                if (traceStart < 0) {
+                    int start = indexOfTraceStart(data, length, scanFrom);
+                    if (start >= 0) {
+                        if (header == null)
+                            header = Arrays.copyOf(data, start);
+
+                        traceStart = start;
+                        scanFrom = start + traceOpen.length;
+                    }
+                }
+
+                if (traceStart >= 0) {
+                    int end = indexOfTraceEnd(data, length, traceStart, scanFrom);
+                    if (end >= 0) {
+                        consumer.accept(Arrays.copyOfRange(data, traceStart, end));
+                        scanFrom = end;
+                        traceStart = -1;
+                        progress = true;
+                    }
+                }
+            }
+
+            if (read == -1)
+                break;
+
+            // drop consumed bytes; the header is kept until the first trace is found
+            int keep = traceStart >= 0 ? traceStart : header != null ? Math.max(scanFrom, length - traceOpen.length) : 0;
+            if (keep > 0) {
+                System.arraycopy(data, keep, data, 0, length - keep);
+                length -= keep;
+                scanFrom = Math.max(0, scanFrom - keep);
+                if (traceStart >= 0)
+                    traceStart -= keep;
+            }
+
+            if (length == data.length)
+                data = Arrays.copyOf(data, data.length * 2);
+
+            if (traceStart < 0)
+                scanFrom = Math.max(scanFrom, length - traceOpen.length);
+            else
+                scanFrom = Math.max(scanFrom, length - traceClose.length);
+        }
+
+        if (traceStart >= 0)
+            throw new IOException("Unexpected end of " + filename + " inside of a trace");
+
+        return header != null ? header : Arrays.copyOf(data, length);
+    }
+
+    // '<trace' followed by '>', '/' or whitespace
+    private static int indexOfTraceStart(byte[] data, int length, int from) {
+        for (int i = indexOf(data, length, traceOpen, from); i >= 0; i = indexOf(data, length, traceOpen, i + 1)) {
+            int next = i + traceOpen.length;
+            if (next >= length)
+                return -1;
+
+            if (isNameEnd(data[next]))
+                return i;
+        }
+
+        return -1;
+    }
+
+    // end (exclusive) of the trace element which starts at 'start'; -1 if it is not complete yet
+    private static int indexOfTraceEnd(byte[] data, int length, int start, int from) {
+        int gt = start + traceOpen.length;
+        while (gt < length && data[gt] != '>')
+            ++gt;
+
+        if (gt >= length)
+            return -1;
+
+        if (data[gt - 1] == '/')  // <trace/>
+            return gt + 1;
+
+        int close = indexOf(data, length, traceClose, Math.max(from, gt));
+        return close < 0 ? -1 : close + traceClose.length;
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] pattern, int from) {
+        outer:
+        for (int i = Math.max(0, from); i <= length - pattern.length; ++i) {
+            if (data[i] != pattern[0])
+                continue;
+
+            for (int j = 1; j < pattern.length; ++j)
+                if (data[i + j] != pattern[j])
+                    continue outer;
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private XLog parseHeader(byte[] header) throws Exception {
+        String text = new String(header, StandardCharsets.UTF_8);
+        if (!text.contains("</log>"))
+            text += "</log>";
+
+        return new XesXmlParser(factory).parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).get(0);
+    }
+
+    /*
+     * same semantics as XesXmlParser.XesXmlHandler, for one trace element.
+     * xes traces hold only elements with attributes, so a tag scanner is enough (no text content, no dtd)
+     */
+    private XTrace parseTrace(byte[] chunk) throws IOException {
+        XTrace trace = factory.createTrace();
+        XEvent event = null;
+        Deque<XAttributable> owners = new ArrayDeque<>();
+        List<XAttribute> attributes = new ArrayList<>();  // stack; null for skipped attributes
+        Map<String, String> values = new HashMap<>();
+
+        int pos = 0;
+        while ((pos = indexOf(chunk, chunk.length, (byte) '<', pos)) >= 0) {
+            byte next = pos + 1 < chunk.length ? chunk[pos + 1] : 0;
+            if (next == '!' || next == '?') {  // comment or processing instruction
+                pos = skip(chunk, pos, next == '!' ? "-->" : "?>");
+                continue;
+            }
+
+            int nameStart = next == '/' ? pos + 2 : pos + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < chunk.length && !isNameEnd(chunk[nameEnd]))
+                ++nameEnd;
+
+            String tag = new String(chunk, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+            values.clear();
+            pos = readAttributes(chunk, nameEnd, values);
+            boolean closed = chunk[pos - 2] == '/';
+
+            if (next != '/') {
+                if (tag.equalsIgnoreCase("trace")) {
+                    owners.push(trace);
+                } else if (tag.equalsIgnoreCase("event")) {
+                    event = factory.createEvent();
+                    owners.push(event);
+                } else if (isAttribute(tag)) {
+                    XAttribute attribute = createAttribute(tag, values.get("key"), values.get("value"));
+                    attributes.add(attribute);
+                    if (attribute != null)
+                        owners.push(attribute);
+                }
+            }
+
+            if (next == '/' || closed) {
+                if (isAttribute(tag)) {
+                    XAttribute attribute = attributes.remove(attributes.size() - 1);
+                    if (attribute != null) {
+                        owners.pop();
+                        owners.peek().getAttributes().put(attribute.getKey(), attribute);
+                    }
+                } else if (tag.equalsIgnoreCase("event")) {
+                    owners.pop();
+                    trace.add(event);
+                    event = null;
+                }
+            }
+        }
+
+        if (trace instanceof XTraceBufferedImpl)
+            ((XTraceBufferedImpl) trace).consolidate();
+
+        return trace;
+    }
+
+    // reads name="value" pairs up to the end of tag; returns position after '>'
+    private static int readAttributes(byte[] chunk, int pos, Map<String, String> values) throws IOException {
+        while (pos < chunk.length) {
+            byte c = chunk[pos];
+            if (c == '>')
+                return pos + 1;
+
+            if (c == '/' || isSpace(c)) {
+                ++pos;
+                continue;
+            }
+
+            int nameStart = pos;
+            while (pos < chunk.length && chunk[pos] != '=' && !isSpace(chunk[pos]))
+                ++pos;
+
+            String name = new String(chunk, nameStart, pos - nameStart, StandardCharsets.UTF_8);
+            while (pos < chunk.length && (chunk[pos] == '=' || isSpace(chunk[pos])))
+                ++pos;
+
+            if (pos >= chunk.length)
+                break;
+
+            byte quote = chunk[pos];
+            int valueEnd = indexOf(chunk, chunk.length, quote, pos + 1);
+            if (valueEnd < 0)
+                break;
+
+            values.put(name, unescape(new String(chunk, pos + 1, valueEnd - pos - 1, StandardCharsets.UTF_8)));
+            pos = valueEnd + 1;
+        }
+
+        throw new IOException("Unterminated tag in trace");
+    }
+
+    private static String unescape(String value) {
+        int amp = value.indexOf('&');
+        if (amp < 0)
+            return value;
+
+        StringBuilder sb = new StringBuilder(value.length());
+        sb.append(value, 0, amp);
+        for (int i = amp; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            int semicolon = c == '&' ? value.indexOf(';', i) : -1;
+            if (semicolon < 0) {
+                sb.append(c);
+                continue;
+            }
+
+            String entity = value.substring(i + 1, semicolon);
+            if (entity.equals("amp"))
+                sb.append('&');
+            else if (entity.equals("lt"))
+                sb.append('<');
+            else if (entity.equals("gt"))
+                sb.append('>');
+            else if (entity.equals("quot"))
+                sb.append('"');
+            else if (entity.equals("apos"))
+                sb.append('\'');
+            else if (entity.startsWith("#x"))
+                sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+            else if (entity.startsWith("#"))
+                sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+            else
+                sb.append(value, i, semicolon + 1);
+
+            i = semicolon;
+        }
+
+        return sb.toString();
+    }
+
+    private static int skip(byte[] chunk, int pos, String terminator) {
+        int end = indexOf(chunk, chunk.length, terminator.getBytes(StandardCharsets.US_ASCII), pos);
+        return end < 0 ? chunk.length : end + terminator.length();
+    }
+
+    private static int indexOf(byte[] data, int length, byte b, int from) {
+        for (int i = from; i < length; ++i)
+            if (data[i] == b)
+                return i;
+
+        return -1;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isNameEnd(byte c) {
+        return c == '>' || c == '/' || isSpace(c);
+    }
+
+    private static boolean isAttribute(String tag) {
+        return tag.equalsIgnoreCase("string")
+                || tag.equalsIgnoreCase("date")
+                || tag.equalsIgnoreCase("int")
+                || tag.equalsIgnoreCase("float")
+                || tag.equalsIgnoreCase("boolean");
+    }
+
+    private XAttribute createAttribute(String tag, String key, String value) {
+        if (key == null || value == null)
+            return null;
+
+        XExtension extension = null;
+        int colon = key.indexOf(':');
+        if (colon > 0 && colon < key.length() - 1)
+            extension = XExtensionManager.instance().getByPrefix(key.substring(0, colon));
+
+        if (tag.equalsIgnoreCase("string"))
+            return factory.createAttributeLiteral(key, value, extension);
+
+        if (tag.equalsIgnoreCase("date")) {
+            Date date = dates.get().parseXsDateTime(value);
+            return date == null ? null : factory.createAttributeTimestamp(key, date, extension);
+        }
+
+        if (tag.equalsIgnoreCase("int"))
+            return factory.createAttributeDiscrete(key, Long.parseLong(value), extension);
+
+        if (tag.equalsIgnoreCase("float"))
+            return factory.createAttributeContinuous(key, Double.parseDouble(value), extension);
+
+        return factory.createAttributeBoolean(key, Boolean.parseBoolean(value), extension);
+    }
+
+    private interface ChunkConsumer {
+        void accept(byte[] chunk) throws Exception;
+    }
+}
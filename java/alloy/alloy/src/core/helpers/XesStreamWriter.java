@@ -0,0 +1,161 @@
+package core.helpers;
+
+import core.interfaces.LogWriter;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.*;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.deckfour.xes.util.XsDateTimeConversion;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * writes XES log trace by trace, so the log never has to be kept in memory.
+ * extensions, globals, classifiers and attributes of the header log are written once at the start,
+ * traces of the header itself are ignored.
+ * traces are renamed to 'Case No. N' in order of arrival (see setRenameTraces)
+ */
+public class XesStreamWriter implements LogWriter {
+    private Writer out;
+    private XsDateTimeConversion dateConversion = new XsDateTimeConversion();
+    private int count = 0;
+    private boolean renameTraces = true;
+
+    public XesStreamWriter(String filename, XLog header) throws IOException {
+        this(filename, header, filename.endsWith(".gz"));
+    }
+
+    public XesStreamWriter(String filename, XLog header, boolean gzip) throws IOException {
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(filename), 1 << 16);
+        if (gzip)
+            os = new GZIPOutputStream(os, 1 << 16);
+
+        this.out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16);
+        writeHeader(header);
+    }
+
+    private void writeHeader(XLog header) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+        out.write("<log xes.version=\"1.0\" xes.features=\"nested-attributes\" openxes.version=\"1.0RC7\" xmlns=\"http://www.xes-standard.org/\">\n");
+
+        for (XExtension ext : header.getExtensions()) {
+            out.write("\t<extension name=\"" + escape(ext.getName()) + "\" prefix=\"" + escape(ext.getPrefix()) +
+                    "\" uri=\"" + escape(ext.getUri().toString()) + "\"/>\n");
+        }
+
+        writeGlobal("trace", header.getGlobalTraceAttributes());
+        writeGlobal("event", header.getGlobalEventAttributes());
+
+        for (XEventClassifier classifier : header.getClassifiers()) {
+            out.write("\t<classifier name=\"" + escape(classifier.name()) + "\" keys=\"" +
+                    escape(String.join(" ", classifier.getDefiningAttributeKeys())) + "\"/>\n");
+        }
+
+        for (XAttribute attribute : header.getAttributes().values())
+            writeAttribute(attribute, 1);
+    }
+
+    private void writeGlobal(String scope, Iterable<XAttribute> attributes) throws IOException {
+        if (!attributes.iterator().hasNext())
+            return;
+
+        out.write("\t<global scope=\"" + scope + "\">\n");
+        for (XAttribute attribute : attributes)
+            writeAttribute(attribute, 2);
+        out.write("\t</global>\n");
+    }
+
+    @Override
+    public synchronized void accept(XTrace trace) throws IOException {
+        long start = Telemetry.start();
+        ++count;
+        if (renameTraces)
+            trace.getAttributes().put("concept:name", new XAttributeLiteralImpl("concept:name", "Case No. " + count));
+
+        out.write("\t<trace>\n");
+        for (XAttribute attribute : trace.getAttributes().values())
+            writeAttribute(attribute, 2);
+
+        for (XEvent event : trace) {
+            out.write("\t\t<event>\n");
+            for (XAttribute attribute : event.getAttributes().values())
+                writeAttribute(attribute, 3);
+            out.write("\t\t</event>\n");
+        }
+
+        out.write("\t</trace>\n");
+        Telemetry.stop("serialization", start);
+        Telemetry.count("traces", 1);
+    }
+
+    @Override
+    public synchronized int getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void setRenameTraces(boolean renameTraces) {
+        this.renameTraces = renameTraces;
+    }
+
+    private void writeAttribute(XAttribute attribute, int indent) throws IOException {
+        for (int i = 0; i < indent; ++i)
+            out.write('\t');
+
+        String tag;
+        String value;
+        if (attribute instanceof XAttributeTimestamp) {
+            tag = "date";
+            value = dateConversion.format(((XAttributeTimestamp) attribute).getValue());
+        } else if (attribute instanceof XAttributeDiscrete) {
+            tag = "int";
+            value = String.valueOf(((XAttributeDiscrete) attribute).getValue());
+        } else if (attribute instanceof XAttributeContinuous) {
+            tag = "float";
+            value = String.valueOf(((XAttributeContinuous) attribute).getValue());
+        } else if (attribute instanceof XAttributeBoolean) {
+            tag = "boolean";
+            value = String.valueOf(((XAttributeBoolean) attribute).getValue());
+        } else {
+            tag = "string";
+            value = attribute.toString();
+        }
+
+        out.write("<" + tag + " key=\"" + escape(attribute.getKey()) + "\" value=\"" + escape(value) + "\"");
+        if (!attribute.getAttributes().isEmpty()) {
+            out.write(">\n");
+            for (XAttribute nested : attribute.getAttributes().values())
+                writeAttribute(nested, indent + 1);
+            for (int i = 0; i < indent; ++i)
+                out.write('\t');
+            out.write("</" + tag + ">\n");
+        } else {
+            out.write("/>\n");
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\'': sb.append("&apos;"); break;
+                default: sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.write("</log>\n");
+        out.close();
+    }
+}
@@ -0,0 +1,10 @@
+package core.interfaces;
+
+import java.io.Closeable;
+
+public interface LogWriter extends TraceSink, Closeable {
+    int getCount();
+
+    // by default traces are renamed to 'Case No. N' in order of arrival
+    void setRenameTraces(boolean renameTraces);
+}
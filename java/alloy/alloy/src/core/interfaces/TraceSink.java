@@ -0,0 +1,9 @@
+package core.interfaces;
+
+import org.deckfour.xes.model.XTrace;
+
+import java.io.IOException;
+
+public interface TraceSink {
+    void accept(XTrace trace) throws IOException;
+}
@@ -7,6 +7,9 @@ public class AlloyRunConfiguration {
 
     public boolean waitInputBeforeExit = false;
 
+    // generation errors are thrown to the caller instead of only printed (set by GenerationServer)
+    public boolean throwErrors = false;
+
     public int intervalSplits = 1;
 
     public int minLength = 2;
@@ -33,6 +36,19 @@ public class AlloyRunConfiguration {
 
     public boolean evenLengthsDistribution = false;
 
+    /*
+    number of generator runs (length buckets, vacuity classes, shuffle steps)
+    executed simultaneously. 1 - sequential generation.
+    in query mode - number of traces queried simultaneously
+     */
+    public int threads = 1;
+
+    /*
+    with evenLengthsDistribution: translate the model once for min..max
+    and sort enumerated traces by length instead of translating each length separately
+     */
+    public boolean reuseTranslation = false;
+
     public String modelFilename;
 
     public String alsFilename = "temp.als";
@@ -41,17 +57,84 @@ public class AlloyRunConfiguration {
 
     public boolean saveSmv = false;
 
+    // write traces to logFilename while they are generated instead of keeping whole log in memory
+    public boolean streamLog = false;
+
+    public boolean gzipLog = false;
+
+    // keep generated or read traces in a memory-mapped swap file instead of the heap (see MappedLog)
+    public boolean mappedLog = false;
+
+    // reuse parsed and translated models between generation calls with same model and parameters
+    public boolean cacheModels = false;
+
     public String function;
 
     public boolean underscore_spaces;
 
     public ExecutionMode mode;
 
+    public Solver solver = Solver.SAT4J;
+
+    public ConformanceBackend conformanceBackend = ConformanceBackend.ALLOY;
+
+    // per-phase timings and counters (see Telemetry): written to this file at the end of the run if set
+    public String reportFilename;
+
+    // serve the same report on localhost:port (/metrics, /report) while running; 0 - disabled
+    public int metricsPort = 0;
+
+    // resident mode (see GenerationServer): port, number of concurrent runs and of runs waiting for a worker
+    public int serverPort = 8585;
+    public int serverWorkers = Runtime.getRuntime().availableProcessors();
+    public int serverQueue = 64;
+
+    // -query: minimal share of traces in which a state holds, and is vacuous, to be reported (0..1)
+    public double querySupport = 0;
+    public double queryVacuousSupport = 0;
+
+    // -query: solutions looked at per trace, and time per trace in ms (0 - no limit)
+    public int querySolutionLimit = 1000;
+    public long queryTimeLimit = 0;
+
+    // -convert: log is read from logFilename and written to convertFilename; formats by file names (see LogFiles)
+    public String convertFilename;
+
     public enum ExecutionMode {
         GENERATION,
         FUNCTION_VALIDATION,
         COMPLIANCE_CHECK,
         QUERY,
+        SOLVER_COMPARISON,
+        SERVER,
+        CONVERSION,
+        ;
+    }
+
+    /*
+    how compliance checking and monitoring evaluate constraints on concrete traces.
+    NATIVE - automata (core.conformance), no SAT solving. BOTH - alloy results are used,
+    native ones are computed as well and every difference is reported
+     */
+    public enum ConformanceBackend {
+        ALLOY,
+        NATIVE,
+        BOTH,
+        ;
+    }
+
+    /*
+    native solvers are used through JNI and require their library in java.library.path.
+    if requested one is not found, SAT4J is used. AUTO - first available native solver
+     */
+    public enum Solver {
+        SAT4J,
+        MINISAT,
+        MINISAT_PROVER,
+        GLUCOSE,
+        LINGELING,
+        CRYPTOMINISAT,
+        AUTO,
         ;
     }
 }
@@ -19,6 +19,7 @@ public class FloatInterval extends Interval {
     private boolean includeMin;
     private boolean includeMax;
     private SafeFunction2<Float, Float, Float> getValueBetween;
+    private SafeFunction2<Float, Float, Float> valueGenerator;
     private Map<String, Set<String>> differentCache;
 
     public FloatInterval(float min, float max, boolean includeMin, boolean includeMax, SafeFunction2<Float, Float, Float> valueGenerator) {
@@ -26,6 +27,7 @@ public class FloatInterval extends Interval {
         this.max = max;
         this.includeMin = includeMin;
         this.includeMax = includeMax;
+        this.valueGenerator = valueGenerator;
         this.getValueBetween = valueGenerator;
         if (valueGenerator == null) {
             // TODO: this should not include 0; rnd.nextFloat() -> [0,1). ideally, 0 and 1 inclusion controlled by includeMin and includeMax variables
@@ -94,6 +96,11 @@ public class FloatInterval extends Interval {
         return -1;
     }
 
+    @Override
+    public Interval copy() {
+        return new FloatInterval(min, max, includeMin, includeMax, valueGenerator);
+    }
+
     public boolean isIn(float value) {
         return (value < max || includeMax && value == max) && (value > min || includeMin && value == min);
     }
@@ -18,10 +18,12 @@ public class IntegerInterval extends Interval { //does not include min and max v
     int min;
     int max;
     SafeFunction2<Integer, Integer, Integer> getValueBetween;
+    private SafeFunction2<Integer, Integer, Integer> valueGenerator;
 
     public IntegerInterval(int min, int max, SafeFunction2<Integer, Integer, Integer> valueGenerator) {
         this.min = min;
         this.max = max;
+        this.valueGenerator = valueGenerator;
         this.getValueBetween = valueGenerator;
         if (valueGenerator == null)
             this.getValueBetween = (amin, amax) -> rnd.nextInt(amax - amin - 1) + amin + 1;
@@ -103,6 +105,11 @@ public class IntegerInterval extends Interval { //does not include min and max v
         return values < limit ? values : -1;
     }
 
+    @Override
+    public Interval copy() {
+        return new IntegerInterval(min, max, valueGenerator);
+    }
+
     public int getMin() {
         return min;
     }
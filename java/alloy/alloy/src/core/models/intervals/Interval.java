@@ -56,4 +56,7 @@ public abstract class Interval {
     }
 
     public abstract int getValueCount(int limit);
+
+    // same bounds and value generator, own random and caches (intervals are filled per trace during extraction)
+    public abstract Interval copy();
 }
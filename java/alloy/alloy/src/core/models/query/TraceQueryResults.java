@@ -4,12 +4,18 @@ import java.util.Set;
 
 public class TraceQueryResults {
     public TraceQueryResults(String name, Set<QueryState> states) {
+        this(name, states, 1);
+    }
+
+    public TraceQueryResults(String name, Set<QueryState> states, int count) {
         this.name = name;
         this.states = states;
+        this.count = count;
     }
 
     private String name;
     private Set<QueryState> states;
+    private int count;  // number of traces with these results (traces of one variant)
 
     public String getName() {
         return name;
@@ -26,4 +32,12 @@ public class TraceQueryResults {
     public void setStates(Set<QueryState> states) {
         this.states = states;
     }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
 }
@@ -0,0 +1,146 @@
+package core.monitoring;
+
+import core.exceptions.GenerationException;
+import declare.DeclareParserException;
+import declare.lang.DataConstraint;
+import edu.mit.csail.sdg.alloy4.Err;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * enumerates all minimal unsatisfiable subsets (MUS) of constraints with the MARCO algorithm.
+ * the map of explored subsets is kept as blocking clauses: supersets of a found MUS and subsets
+ * of a found maximal satisfiable subset (MSS) are never checked again.
+ * each seed is grown to MSS or shrunk to MUS with one solver call per constraint,
+ * so the number of solver calls follows the number of conflicts, not the number of constraint combinations
+ */
+public class ConflictExplainer {
+    public interface Oracle {
+        boolean isSatisfiable(List<DataConstraint> subset) throws Err, GenerationException, DeclareParserException;
+    }
+
+    private final List<DataConstraint> constraints;
+    private final Oracle oracle;
+    private final List<BitSet> blockedUp = new ArrayList<>();     // found MUSes: seed must miss one of them
+    private final List<BitSet> blockedDown = new ArrayList<>();   // found MSSes: seed must take one element outside
+    private final Map<BitSet, Boolean> checked = new HashMap<>();
+
+    public ConflictExplainer(List<DataConstraint> constraints, Oracle oracle) {
+        this.constraints = constraints;
+        this.oracle = oracle;
+    }
+
+    public List<List<DataConstraint>> enumerate() throws Err, GenerationException, DeclareParserException {
+        List<List<DataConstraint>> conflicts = new ArrayList<>();
+
+        BitSet seed;
+        while ((seed = getMaximalUnexplored()) != null) {
+            if (isSatisfiable(seed)) {
+                blockedDown.add(grow(seed));
+            } else {
+                BitSet mus = shrink(seed);
+                blockedUp.add(mus);
+                conflicts.add(toList(mus));
+            }
+        }
+
+        return conflicts;
+    }
+
+    public int getSolverCalls() {
+        return checked.size();
+    }
+
+    private BitSet grow(BitSet seed) throws Err, GenerationException, DeclareParserException {
+        BitSet mss = (BitSet) seed.clone();
+        for (int i = 0; i < constraints.size(); ++i) {
+            if (mss.get(i))
+                continue;
+
+            mss.set(i);
+            if (!isSatisfiable(mss))
+                mss.clear(i);
+        }
+
+        return mss;
+    }
+
+    private BitSet shrink(BitSet seed) throws Err, GenerationException, DeclareParserException {
+        BitSet mus = (BitSet) seed.clone();
+        for (int i = mus.nextSetBit(0); i >= 0; i = mus.nextSetBit(i + 1)) {
+            mus.clear(i);
+            if (isSatisfiable(mus))
+                mus.set(i);
+        }
+
+        return mus;
+    }
+
+    private boolean isSatisfiable(BitSet subset) throws Err, GenerationException, DeclareParserException {
+        Boolean result = checked.get(subset);
+        if (result == null) {
+            result = subset.isEmpty() || oracle.isSatisfiable(toList(subset));
+            checked.put((BitSet) subset.clone(), result);
+        }
+
+        return result;
+    }
+
+    // depth-first search trying 'included' first, so the first subset found is maximal
+    private BitSet getMaximalUnexplored() {
+        BitSet assigned = new BitSet();
+        BitSet value = new BitSet();
+        return search(0, assigned, value) ? value : null;
+    }
+
+    private boolean search(int i, BitSet assigned, BitSet value) {
+        if (!consistent(assigned, value))
+            return false;
+
+        if (i == constraints.size())
+            return true;
+
+        assigned.set(i);
+        value.set(i);
+        if (search(i + 1, assigned, value))
+            return true;
+
+        value.clear(i);
+        if (search(i + 1, assigned, value))
+            return true;
+
+        assigned.clear(i);
+        return false;
+    }
+
+    private boolean consistent(BitSet assigned, BitSet value) {
+        for (BitSet mus : blockedUp) {
+            BitSet taken = (BitSet) mus.clone();
+            taken.and(value);
+            if (taken.equals(mus))
+                return false;
+        }
+
+        for (BitSet mss : blockedDown) {
+            boolean possible = false;
+            for (int i = 0; i < constraints.size() && !possible; ++i)
+                possible = !mss.get(i) && (!assigned.get(i) || value.get(i));
+
+            if (!possible)
+                return false;
+        }
+
+        return true;
+    }
+
+    private List<DataConstraint> toList(BitSet subset) {
+        List<DataConstraint> list = new ArrayList<>(subset.cardinality());
+        for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1))
+            list.add(constraints.get(i));
+        return list;
+    }
+}
@@ -1,13 +1,16 @@
 package core.monitoring;
 
 import edu.mit.csail.sdg.alloy4.Err;
-import edu.mit.csail.sdg.alloy4compiler.ast.Module;
 import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
 import declare.DeclareParserException;
+import core.Global;
+import core.RunContext;
 import core.exceptions.GenerationException;
 import core.alloy.codegen.AlloyCodeGenerator;
 import core.alloy.codegen.NameEncoder;
 import core.alloy.integration.AlloyComponent;
+import core.conformance.ConstraintAutomaton;
+import core.models.AlloyRunConfiguration.ConformanceBackend;
 import declare.lang.Constraint;
 import declare.lang.DataConstraint;
 import declare.lang.Statement;
@@ -67,14 +70,15 @@ public class ConstraintChecker {
 							    		.map(Statement::getCode)
 							    		.toArray(String[]::new);
         
-        constraintNames = setConstraintStringNames(constraints, dataConstraintsName);
+        constraintNames = setConstraintStringNames(constraints, dataConstraintsName, encodings);
     }
     
     public void setTrace(XTrace trace) {
         this.trace = trace;
     }
     
-    private String [] setConstraintStringNames(List<Constraint> constraints, String[] dataConstraintsName) {
+    // names used in monitoring output; also used by IncrementalMonitor
+    static String [] setConstraintStringNames(List<Constraint> constraints, String[] dataConstraintsName, NameEncoder encodings) {
     	String [] constraintNames = new String[constraints.size() + dataConstraintsName.length];
         
         int i = 0;
@@ -137,11 +141,36 @@ public class ConstraintChecker {
         
         if (constraints != null && !constraints.isEmpty())
             for (Constraint c : constraints)
-            	c.setState(checkCurrentState(c));
+            	c.setState(getState(c));
 
         if (dataConstraints != null && !dataConstraints.isEmpty())
             for (DataConstraint dc : dataConstraints)
-                dc.setState(checkCurrentState(dc));
+                dc.setState(getState(dc));
+    }
+    
+    // alloy or native (automaton) evaluation depending on RunContext.current().conformanceBackend
+    private Constraint.State getState(Constraint c) throws DeclareParserException, GenerationException, Err {
+    	if (RunContext.current().conformanceBackend == ConformanceBackend.ALLOY)
+    		return checkCurrentState(c);
+    	
+    	Constraint.State nativeState = ConstraintAutomaton.compile(c).run(trace);
+    	
+    	if (RunContext.current().conformanceBackend == ConformanceBackend.BOTH) {
+    		Constraint.State alloyState = checkCurrentState(c);
+    		if (alloyState != nativeState)
+    			Global.log.accept("Backends disagree on " + c.getStatement().getCode() + ": alloy " + alloyState + ", native " + nativeState);
+    		
+    		return alloyState;
+    	}
+    	
+    	if (nativeState == Constraint.State.PERMANENTLY_VIOLATED) {
+    		if (c instanceof DataConstraint)
+                permViolatedDataCon.add(c);
+            else
+                permViolatedCon.add(c);
+    	}
+    	
+    	return nativeState;
     }
     
     private Constraint.State checkCurrentState(Constraint c) throws DeclareParserException, GenerationException, Err {
@@ -619,86 +648,67 @@ public class ConstraintChecker {
         return alloyCheck(alloyCode+traceCode);
     }
 
-    public boolean checkSublistConjunction(int n, int r) throws GenerationException, DeclareParserException, Err {
-        // We do SubLists
-        ArrayList<ArrayList<DataConstraint>> subLists = new ArrayList<>();
-        subLists = printCombination(allConstraintArr,n, r,subLists); // See on selle t�ieliku subsetiga onja.
-        
-        boolean overAllSolution = true;
-        
-        for (ArrayList<DataConstraint> subList : subLists) {
-            AlloyCodeGenerator gen = new AlloyCodeGenerator((maxTraceLen + 6), minTraceLen, bitwidth, 1, false, false, true);
-            TraceAlloyCode traceGen = new TraceAlloyCode();
-            
-            boolean solution = checkSubSet(subList, traceGen, gen); // Me saame, siin kas true v�i false, kui on false, siis njoormilt saame asju teha n��d.
-            if (!solution) { // see on n��d false aga mis v�rk on see ,et meil on siis ainult �ks subList checkitud
-                overAllSolution = false;
-                
-                int i = 0;
-                while (i < subList.size()) {
-                    DataConstraint dc = subList.get(i);
-                    
-                    if (dc.getFunctions() == null){ // We know this is a new fake dataConstraint that is actually a Constraint so we have to find a constraint that corresponds to the original one.
-                        for (Constraint c : constraints) {
-                            // With this if clause we try to find whether to constraints are exactly the same
-                            if (c.getName().equals(dc.getName()) && c.getArgs().equals(dc.getArgs()) && c.getStatement().getCode().equals(dc.getStatement().getCode()) && c.getStatement().getLine() == dc.getStatement().getLine()) {
-                                c.setState(Constraint.State.STATE_CONFLICT);
-                                System.out.println("Conflictis on c: " + c.getName());
-                            }
-                        }
-                    
-                    } else {
-                        dc.setState(Constraint.State.STATE_CONFLICT);
-                        System.out.println("Conflictis on dc: " + dc.getName());
-                    }
-                    
-                    i++;
+    /*
+     * finds every minimal set of not yet violated constraints which cannot be satisfied together with the current prefix.
+     * instead of one solve per combination of constraints, minimal unsatisfiable subsets are enumerated (see ConflictExplainer)
+     */
+    public List<List<DataConstraint>> checkMinimalConflicts() throws GenerationException, DeclareParserException, Err {
+        List<DataConstraint> candidates = new ArrayList<>();
+        for (DataConstraint dc : allConstraintArr)
+            if (!isPermViolated(dc))
+                candidates.add(dc);
+
+        ConflictExplainer explainer = new ConflictExplainer(candidates, this::checkSubSet);
+        List<List<DataConstraint>> conflicts = explainer.enumerate();
+        Global.log.accept("Conflict explanation: " + conflicts.size() + " minimal conflicts, " + explainer.getSolverCalls() + " solver calls");
+
+        for (List<DataConstraint> conflict : conflicts) {
+            for (DataConstraint dc : conflict) {
+                if (dc.getFunctions() == null) { // fake dataConstraint that is actually a Constraint, so the original one gets the state
+                    Constraint c = getOriginal(dc);
+                    if (c != null)
+                        c.setState(Constraint.State.STATE_CONFLICT);
+                } else {
+                    dc.setState(Constraint.State.STATE_CONFLICT);
                 }
             }
+
+            if (!conflictedConstraints.contains(conflict))
+                conflictedConstraints.add(conflict);
         }
-        
-        return overAllSolution;
+
+        return conflicts;
     }
-    
-    boolean checkSubSet(ArrayList<DataConstraint> subList, TraceAlloyCode traceGen, AlloyCodeGenerator gen) throws Err, GenerationException, DeclareParserException {
-        boolean isPermViolated = false;
-        boolean isSubList = false;
-
-        for (DataConstraint dc: subList) {
-            if (dc.getFunctions() == null)
-                for(Constraint c : constraints)
-                    if (c.getName().equals(dc.getName()) && c.getArgs().equals(dc.getArgs())
-                    		&& c.getStatement().getCode().equals(dc.getStatement().getCode())
-                    		&& c.getStatement().getLine() == dc.getStatement().getLine())
-                        if (c.getState() == Constraint.State.PERMANENTLY_VIOLATED)
-                            isPermViolated = true;
-                        
-            if (dc.getState() == Constraint.State.PERMANENTLY_VIOLATED)
-                isPermViolated = true;
-        }
-        
-        for (List<DataConstraint> conflictedConstraint : conflictedConstraints)
-            if (subList.containsAll(conflictedConstraint))
-                isSubList = true;
-            
-        if (!conflictedConstraints.contains(subList) && !isPermViolated && !isSubList) {
-            gen.runConflictChecker(model, subList, false);
-            traceGen.setNumericData(gen.getNumericData());
-            traceGen.run(trace, model, true);
-            String alloyCode = gen.getAlloyCode();
-            String traceCode = traceGen.getTraceCode();
-            String allAlloyCode = alloyCode +traceCode;
-            boolean solution = (alloyCheck(allAlloyCode));
-            //System.out.println("in isDConstraint");
-            
-            if (!solution)
-                conflictedConstraints.add(subList);
-            
-            return solution;
-        
-        } else {
-            return true;
+
+    private boolean isPermViolated(DataConstraint dc) {
+        if (dc.getFunctions() == null) {
+            Constraint c = getOriginal(dc);
+            return c != null && c.getState() == Constraint.State.PERMANENTLY_VIOLATED;
         }
+
+        return dc.getState() == Constraint.State.PERMANENTLY_VIOLATED;
+    }
+
+    private Constraint getOriginal(DataConstraint dc) {
+        for (Constraint c : constraints)
+            if (c.getName().equals(dc.getName()) && c.getArgs().equals(dc.getArgs())
+                    && c.getStatement().getCode().equals(dc.getStatement().getCode())
+                    && c.getStatement().getLine() == dc.getStatement().getLine())
+                return c;
+
+        return null;
+    }
+
+    boolean checkSubSet(List<DataConstraint> subList) throws Err, GenerationException, DeclareParserException {
+        AlloyCodeGenerator gen = new AlloyCodeGenerator((maxTraceLen + 6), minTraceLen, bitwidth, 1, false, false, true);
+        TraceAlloyCode traceGen = new TraceAlloyCode();
+        gen.runConflictChecker(model, new ArrayList<>(subList), false);
+        traceGen.setNumericData(gen.getNumericData());
+        traceGen.run(trace, model, true);
+        String alloyCode = gen.getAlloyCode();
+        String traceCode = traceGen.getTraceCode();
+
+        return alloyCheck(alloyCode + traceCode);
     }
 
     public boolean checkModel(int min, int max) throws GenerationException, DeclareParserException, Err {
@@ -713,9 +723,11 @@ public class ConstraintChecker {
     }
 
     private boolean alloyCheck(String allAlloyCode) throws Err {
-        writeAllText(alsFilename, allAlloyCode);
+        if (RunContext.current().saveAls)
+            writeAllText(alsFilename, allAlloyCode);
+
         AlloyComponent alloy = new AlloyComponent();
-        Module world = alloy.parse(alsFilename);
+        alloy.parseFromString(allAlloyCode);
         A4Solution solution = alloy.executeFromFile(maxTraceLen, bitwidth);
         //Global.log.accept("Found Solution: " + (solution != null && solution.satisfiable()));
         
@@ -751,53 +763,6 @@ public class ConstraintChecker {
         return realMatrix;
     }
 
-    private ArrayList<ArrayList<DataConstraint>> getCombination(DataConstraint[] arr, int n, int r,
-                                                  int index, DataConstraint[] data, int i, ArrayList<ArrayList<DataConstraint>> returnList)
-    {
-        // Current combination is ready to be printed,
-        // print it
-        if (index == r) {
-            ArrayList<DataConstraint> arrL = new ArrayList<>();
-            for (int j = 0; j < r; j++) {
-                arrL.add(data[j]);
-            }
-            returnList.add(arrL);
-
-            return returnList;
-        }
-
-        // When no more elements are there to put in data[]
-        if (i >= n)
-            return returnList;
-
-        // current is included, put next at next
-        // location
-        data[index] = arr[i];
-        getCombination(arr, n, r, index + 1,
-                data, i + 1, returnList);
-
-        // current is excluded, replace it with
-        // next (Note that i+1 is passed, but
-        // index is not changed)
-        getCombination(arr, n, r, index, data, i + 1, returnList);
-        return returnList;
-    }
-
-    // The main function that prints all combinations
-    // of size r in arr[] of size n. This function
-    // mainly uses combinationUtil()
-    private ArrayList<ArrayList<DataConstraint>> printCombination(DataConstraint[] arr, int n, int r, ArrayList<ArrayList<DataConstraint>> dcList)
-    {
-        // A temporary array to store all combination
-        // one by one
-        DataConstraint data[] = new DataConstraint[r];
-
-        // Print all combination using temprary
-        // array 'data[]'
-        dcList = getCombination(arr, n, r, 0, data, 0, dcList);
-        return dcList;
-    }
-
     private String[][] updateNewMatrix() {// we have done the checking before so the constraint state  should be there already.
         String [][] realMatrix = getRealMatrix();
         int i = 0;
@@ -0,0 +1,164 @@
+package core.monitoring;
+
+import core.alloy.codegen.NameEncoder;
+import core.conformance.ConstraintAutomaton;
+import declare.DeclareModel;
+import declare.DeclareParserException;
+import declare.lang.Constraint;
+import declare.lang.DataConstraint;
+import declare.lang.Statement;
+
+import org.deckfour.xes.extension.std.XExtendedEvent;
+import org.deckfour.xes.model.XEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/*
+ * online monitor which keeps one automaton per constraint and consumes one event at a time.
+ * stepping does not depend on the length of the trace seen so far. the result has the same format as
+ * ConstraintChecker.updatedString() and lists every state change of the trace: each closed interval is rendered
+ * once when the state changes, and the result is assembled again only after a change, so its cost is linear
+ * in the number of state changes rather than in the number of events
+ */
+public class IncrementalMonitor {
+    private final List<Constraint> constraints = new ArrayList<>();
+    private final String[] constraintNames;
+
+    private List<ConstraintAutomaton> automata;
+    private StringBuilder[] closed;  // rendered intervals which have an end, per constraint
+    private Fluent[] open;           // current state of each constraint
+    private String result;           // null after a state change
+    private String lastTimestamp;
+
+    public IncrementalMonitor(DeclareModel model, NameEncoder encodings) throws DeclareParserException {
+        this(model, encodings, UnaryOperator.identity());
+    }
+
+    // names in the result are passed through decoder once, instead of decoding every result
+    public IncrementalMonitor(DeclareModel model, NameEncoder encodings, UnaryOperator<String> decoder) throws DeclareParserException {
+        constraints.addAll(model.getConstraints());
+        constraints.addAll(model.getDataConstraints());
+
+        String[] dataConstraintsName = model.getDataConstraints().stream()
+                .map(DataConstraint::getStatement)
+                .map(Statement::getCode)
+                .toArray(String[]::new);
+        this.constraintNames = ConstraintChecker.setConstraintStringNames(model.getConstraints(), dataConstraintsName, encodings);
+        for (int i = 0; i < constraintNames.length; ++i)
+            constraintNames[i] = decoder.apply(constraintNames[i]);
+
+        reset();
+    }
+
+    // starts a new trace
+    public void reset() throws DeclareParserException {
+        lastTimestamp = null;
+        result = null;
+        automata = new ArrayList<>(constraints.size());
+        closed = new StringBuilder[constraints.size()];
+        open = new Fluent[constraints.size()];
+        for (int i = 0; i < constraints.size(); ++i) {
+            automata.add(ConstraintAutomaton.compile(constraints.get(i)));
+            closed[i] = new StringBuilder();
+        }
+    }
+
+    public void process(XEvent event) {
+        String timestamp = getTimestamp(event);
+        for (int i = 0; i < automata.size(); ++i) {
+            ConstraintAutomaton automaton = automata.get(i);
+            automaton.step(event);
+            update(i, automaton.getState(), timestamp);
+        }
+
+        lastTimestamp = timestamp;
+    }
+
+    // no more events in this trace: possibly states become permanent at the last event
+    public void finish() {
+        for (int i = 0; i < automata.size(); ++i)
+            update(i, automata.get(i).getFinalState(), lastTimestamp);
+    }
+
+    // same, for a trace closed by an end marker which is not stepped; its timestamp is used only if the trace is empty
+    public void finish(XEvent end) {
+        if (lastTimestamp == null)
+            lastTimestamp = getTimestamp(end);
+
+        finish();
+    }
+
+    public Constraint.State getState(int constraintIndex) {
+        return automata.get(constraintIndex).getState();
+    }
+
+    public String getResult() {
+        if (result != null)
+            return result;
+
+        StringBuilder answer = new StringBuilder("[");
+        for (int i = 0; i < open.length; ++i) {
+            answer.append(closed[i]);
+            if (open[i] != null)
+                render(answer, i, open[i], "inf");
+        }
+
+        if (answer.length() > 1)
+            answer.setLength(answer.length() - 1);
+
+        result = answer.append("]").toString();
+        return result;
+    }
+
+    // a new state closes the interval of the previous one at its start
+    private void update(int constraintIndex, Constraint.State state, String timestamp) {
+        String status = toStatus(state);
+        Fluent current = open[constraintIndex];
+        if (current != null && current.status.equals(status))
+            return;
+
+        if (current != null)
+            render(closed[constraintIndex], constraintIndex, current, timestamp);
+
+        open[constraintIndex] = new Fluent(status, timestamp);
+        result = null;
+    }
+
+    private void render(StringBuilder to, int constraintIndex, Fluent fluent, String end) {
+        to.append("mholds_for(status(").append(constraintNames[constraintIndex]).append(",").append(fluent.status)
+                .append("),[").append(fluent.start).append(",").append(end).append("]),");
+    }
+
+    private static String getTimestamp(XEvent event) {
+        return "" + XExtendedEvent.wrap(event).getTimestamp().getTime();
+    }
+
+    private static String toStatus(Constraint.State state) {
+        switch (state) {
+            case STATE_CONFLICT:
+                return "conflict";
+            case PERMANENTLY_SATISFIED:
+                return "sat";
+            case PERMANENTLY_VIOLATED:
+                return "viol";
+            case POSSIBLY_VIOLATED:
+                return "poss.viol";
+            case POSSIBLY_SATISFIED:
+                return "poss.sat";
+            default:
+                return "unknown";
+        }
+    }
+
+    private static class Fluent {
+        final String status;
+        final String start;
+
+        Fluent(String status, String start) {
+            this.status = status;
+            this.start = start;
+        }
+    }
+}
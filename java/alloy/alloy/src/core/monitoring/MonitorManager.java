@@ -0,0 +1,197 @@
+package core.monitoring;
+
+import core.Global;
+import core.RunContext;
+import core.alloy.codegen.NameEncoder;
+import core.exceptions.CaseEvictedException;
+import declare.DeclareParserException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * monitors many interleaved cases of one model.
+ * every case has its own MonitorRunner; cases are spread over stripes by id,
+ * each stripe is a single thread that owns its cases, so events of one case are processed in order
+ * and no locking is needed. at most queueSize events wait for a stripe; when it is full, submit fails
+ * with RejectedExecutionException.
+ * a stripe keeps at most maxCases / stripes cases (least recently used are evicted), drops cases which got
+ * no events for idleTimeout and forgets cases whose trace was closed. the next event of an evicted case fails
+ * with CaseEvictedException (its state is lost, the case has to be sent again from its first event);
+ * events after that start the case anew
+ */
+public class MonitorManager implements AutoCloseable {
+    private final boolean conflict;
+    private final NameEncoder encoder;
+    private final String encodedModel;
+    private final long idleTimeoutMillis;
+    private final RunContext context;   // settings of the creating run apply to all cases
+    private final List<Stripe> stripes = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemon("monitor-eviction"));
+
+    public MonitorManager(boolean conflict, String stringModel, int stripes, int maxCases, int queueSize, long idleTimeoutMillis)
+            throws DeclareParserException {
+
+        this.conflict = conflict;
+        this.context = RunContext.current();
+        this.encoder = new NameEncoder();
+        this.encodedModel = MonitorRunner.encodeModel(encoder, stringModel);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        int casesPerStripe = Math.max(1, maxCases / stripes);
+        for (int i = 0; i < stripes; ++i) {
+            Stripe stripe = new Stripe(casesPerStripe, queueSize);
+            this.stripes.add(stripe);
+            if (idleTimeoutMillis > 0)
+                scheduler.scheduleWithFixedDelay(stripe::scheduleEvictIdle, idleTimeoutMillis, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     * result has the same format as MonitorRunner.setTrace; completes with null if event could not be processed,
+     * exceptionally with RejectedExecutionException if the stripe queue is full
+     * or with CaseEvictedException if the case was evicted since its previous event
+     */
+    public CompletableFuture<String> submit(String caseId, String stringEvent) {
+        Stripe stripe = stripes.get(Math.floorMod(caseId.hashCode(), stripes.size()));
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            stripe.executor.execute(() -> {
+                try (RunContext.Scope ignored = context.bind()) {
+                    stripe.process(caseId, stringEvent, result);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+
+        return result;
+    }
+
+    public int getCaseCount() {
+        int count = 0;
+        for (Stripe i : stripes)
+            count += i.size;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        for (Stripe i : stripes)
+            i.executor.shutdown();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class Stripe {
+        final ThreadPoolExecutor executor;
+        final Map<String, Case> cases;
+        final Map<String, String> evicted;  // case id -> reason, until the next event of the case
+        volatile int size = 0;  // for statistics only
+
+        Stripe(int capacity, int queueSize) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize), daemon("monitor-stripe"), new ThreadPoolExecutor.AbortPolicy());
+            this.evicted = createLru(capacity);
+            this.cases = new LinkedHashMap<String, Case>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Case> eldest) {
+                    if (size() <= capacity)
+                        return false;
+
+                    Global.log.accept("Monitoring capacity reached, case " + eldest.getKey() + " is dropped");
+                    evicted.put(eldest.getKey(), "monitoring capacity reached");
+                    return true;
+                }
+            };
+        }
+
+        void process(String caseId, String stringEvent, CompletableFuture<String> result) {
+            String reason = evicted.remove(caseId);
+            if (reason != null) {
+                result.completeExceptionally(new CaseEvictedException(caseId, reason));
+                return;
+            }
+
+            try {
+                Case c = cases.get(caseId);
+                if (c == null) {
+                    c = new Case(new MonitorRunner(conflict, encoder, encodedModel));
+                    cases.put(caseId, c);
+                }
+
+                c.lastAccess = System.currentTimeMillis();
+                String answer = c.runner.setTrace(stringEvent);
+                if (c.runner.isTraceClosed())
+                    cases.remove(caseId);
+
+                result.complete(answer);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                result.complete(null);
+            } finally {
+                size = cases.size();
+            }
+        }
+
+        // cases are owned by the stripe thread; if its queue is full, eviction waits for the next period
+        void scheduleEvictIdle() {
+            try {
+                executor.execute(this::evictIdle);
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+
+        void evictIdle() {
+            long border = System.currentTimeMillis() - idleTimeoutMillis;
+            // access order: the least recently used cases come first
+            Iterator<Map.Entry<String, Case>> it = cases.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Case> i = it.next();
+                if (i.getValue().lastAccess >= border)
+                    break;
+
+                evicted.put(i.getKey(), "no events for " + idleTimeoutMillis + " ms");
+                it.remove();
+            }
+
+            size = cases.size();
+        }
+    }
+
+    private static <T> Map<String, T> createLru(int capacity) {
+        return new LinkedHashMap<String, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static class Case {
+        final MonitorRunner runner;
+        long lastAccess;
+
+        Case(MonitorRunner runner) {
+            this.runner = runner;
+        }
+    }
+}
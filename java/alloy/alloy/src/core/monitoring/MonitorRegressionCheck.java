@@ -0,0 +1,67 @@
+package core.monitoring;
+
+import core.Global;
+import core.RunContext;
+import core.models.AlloyRunConfiguration.ConformanceBackend;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.operationalsupport.xml.OSXMLConverter;
+
+import java.util.Date;
+
+/*
+ * regression checks of the native monitoring backend; exits with an exception on the first failure.
+ * End[a] must finish satisfied when the trace ends with a and violated otherwise:
+ * the closing 'complete' event must not be stepped as a trace event
+ */
+public class MonitorRegressionCheck {
+    private static final String model = "activity a\nactivity b\nEnd[a]\n";
+
+    public static void main(String[] args) throws Exception {
+        Global.log = s -> {};
+        RunContext.getDefault().conformanceBackend = ConformanceBackend.NATIVE;
+
+        check("End[a] on a, complete", run("a"), "sat", "viol");
+        check("End[a] on a, b, complete", run("a", "b"), "viol", "sat");
+        check("End[a] on b, a, complete", run("b", "a"), "sat", "viol");
+        // the same runner is used for the next trace after 'complete'
+        MonitorRunner runner = new MonitorRunner(false, model);
+        send(runner, "a", "b");
+        check("End[a] on a second trace", send(runner, "a"), "sat", "viol");
+
+        System.out.println("Monitoring regression checks passed");
+    }
+
+    private static String run(String... activities) throws Exception {
+        return send(new MonitorRunner(false, model), activities);
+    }
+
+    // sends the events followed by 'complete'; returns the answer to 'complete'
+    private static String send(MonitorRunner runner, String... activities) throws Exception {
+        OSXMLConverter converter = new OSXMLConverter();
+        for (int i = 0; i < activities.length; ++i)
+            runner.setTrace(toXML(converter, activities[i], i));
+
+        return runner.setTrace(toXML(converter, "complete", activities.length));
+    }
+
+    private static void check(String name, String answer, String expected, String unexpected) {
+        if (answer == null || !answer.contains("," + expected + ")") || answer.contains("," + unexpected + ")"))
+            throw new IllegalStateException(name + ": expected final state " + expected + ", got " + answer);
+    }
+
+    private static String toXML(OSXMLConverter converter, String activity, int minute) {
+        XFactory factory = XFactoryRegistry.instance().currentDefault();
+        XEvent event = factory.createEvent();
+        XConceptExtension.instance().assignName(event, activity);
+        XTimeExtension.instance().assignTimestamp(event, new Date(minute * 60000L));
+
+        XTrace trace = factory.createTrace();
+        trace.add(event);
+        return converter.toXML(trace);
+    }
+}
@@ -2,10 +2,11 @@ package core.monitoring;
 
 import edu.mit.csail.sdg.alloy4.Err;
 import declare.DeclareParserException;
-import core.Global;
+import core.RunContext;
 import core.alloy.codegen.NameEncoder;
 import core.alloy.codegen.NameEncoder.DataMappingElement;
 import core.exceptions.GenerationException;
+import core.models.AlloyRunConfiguration.ConformanceBackend;
 import declare.DeclareModel;
 
 import org.deckfour.xes.extension.std.XConceptExtension;
@@ -29,27 +30,48 @@ public class MonitorRunner {
 	private OSXMLConverter osxmlConverter;
 	
 	private DeclareModel model;
-	private int overallNumberOfConstraints;
 	private ConstraintChecker constraintChecker;
+	private IncrementalMonitor incrementalMonitor;	// native backend without conflict checking
 	
-	private int r = 2;
+	private boolean traceClosed = false;
 	
 	public MonitorRunner(boolean conflict, String stringModel) throws DeclareParserException {
         this.conflict = conflict;
         this.encoder = new NameEncoder();
-        this.oneTrace = new XTraceImpl(new XAttributeMapImpl());
-        this.osxmlConverter = new OSXMLConverter();
-        
+        init(encodeModel(encoder, stringModel));
+	}
+	
+	/*
+	 * runner for one case of MonitorManager. encoding is shared between cases,
+	 * model is parsed per runner so that constraint states are never shared
+	 */
+	MonitorRunner(boolean conflict, NameEncoder encoder, String encodedModel) throws DeclareParserException {
+        this.conflict = conflict;
+        this.encoder = encoder;
+        init(encodedModel);
+	}
+	
+	static String encodeModel(NameEncoder encoder, String stringModel) throws DeclareParserException {
         String modelWithDummyStart = "activity complete" + System.lineSeparator() + stringModel;
-        if (Global.encodeNames) {
+        if (RunContext.current().encodeNames) {
         	encoder.createDeclMapping(modelWithDummyStart);
         	modelWithDummyStart = encoder.encodeDeclModel(modelWithDummyStart);
         }
-        this.model = DeclareParser.parse(modelWithDummyStart);
         
-        this.overallNumberOfConstraints = model.getDataConstraints().size() + model.getConstraints().size();
+        return modelWithDummyStart;
+	}
+	
+	private void init(String encodedModel) throws DeclareParserException {
+        this.oneTrace = new XTraceImpl(new XAttributeMapImpl());
+        this.osxmlConverter = new OSXMLConverter();
+        
+        this.model = DeclareParser.parse(encodedModel);
+        
         this.constraintChecker = new ConstraintChecker(model);
         //constraintChecker.setEncodings(encoder);  // Used only for printing 
+        
+        if (RunContext.current().conformanceBackend == ConformanceBackend.NATIVE && !conflict)
+        	this.incrementalMonitor = new IncrementalMonitor(model, encoder, this::decode);
 	}
 
     public String setTrace(String stringTrace) throws DeclareParserException, GenerationException, Err {
@@ -58,6 +80,11 @@ public class MonitorRunner {
         
         try {
         	XEvent e = t.get(0);
+        	traceClosed = XConceptExtension.instance().extractName(e).equals(getEncodedDummyEvent());
+        	
+        	if (incrementalMonitor != null)
+        		return processIncrementally(e);  // names are decoded once by the monitor
+        	
         	oneTrace.add(e);
         	
             constraintChecker.setTrace(oneTrace);
@@ -66,12 +93,7 @@ public class MonitorRunner {
             
             String answer;
             
-            String encodedDummyEvent = encoder.getActivityMapping().entrySet().stream()
-					.filter(entry -> entry.getValue().equals("complete"))
-					.map(Map.Entry::getKey)
-					.findFirst().get();
-            
-            if (XConceptExtension.instance().extractName(e).equals(encodedDummyEvent)) {
+            if (traceClosed) {
                 oneTrace.add(e);
                 constraintChecker.setTrace(oneTrace);
                 if (conflict)
@@ -89,40 +111,58 @@ public class MonitorRunner {
                 constraintChecker.run();
                 
                 if (conflict) {
-                    boolean subListCheck = constraintChecker.checkFullConjuction(); // here we find out whether we need to do any further investigation. kui see on false
-                    boolean inWhile = !subListCheck; // siis see on true, ja kui eelnev on true, siis see on false ja see on ka see, mida me tahame, sest eelmine konjuktsioon on ok.
-                    
-                    while (inWhile && ((r <= (overallNumberOfConstraints)) || overallNumberOfConstraints == 2)) { // mis t�hendab, et siinolemine on ull timm
-                        inWhile = constraintChecker.checkSublistConjunction(overallNumberOfConstraints, r);
-                        
-                        if (overallNumberOfConstraints == 2)
-                            break;
-                        
-                        r++;
-                    }
-                    
-                    r = 2; // should be two again, so that we would check the value again afterwards
+                    if (!constraintChecker.checkFullConjuction()) // only then there is something to explain
+                        constraintChecker.checkMinimalConflicts();
                 }
             }
             
             answer = constraintChecker.updatedString();
-            
-            // Restoring real (decoded) names 
-            for (Map.Entry<String,String> entry : encoder.getActivityMapping().entrySet())
-            	answer = answer.replace(entry.getKey(), entry.getValue());
-            
-            for (DataMappingElement d : encoder.getDataMapping()) {
-            	answer = answer.replace(d.getEncodedName(), d.getOriginalName());
-            	
-            	for (Map.Entry<String,String> entry : d.getValuesMapping().entrySet())
-            		answer = answer.replace(entry.getKey(), entry.getValue());
-            }
-            
-            return answer;
+            return decode(answer);
             
         } catch (Throwable err) {
             err.printStackTrace();
             return null;
         }
     }
+    
+    // one automaton step per constraint; the whole prefix is never checked again.
+    // the end-of-trace marker is not a trace event: states of the events before it are finalized, as with alloy
+    private String processIncrementally(XEvent e) throws DeclareParserException {
+    	if (!traceClosed) {
+    		incrementalMonitor.process(e);
+    		return incrementalMonitor.getResult();
+    	}
+    	
+    	incrementalMonitor.finish(e);
+    	String answer = incrementalMonitor.getResult();
+    	incrementalMonitor.reset();
+    	return answer;
+    }
+    
+    // true when the last event was the end-of-trace marker ("complete")
+    public boolean isTraceClosed() {
+    	return traceClosed;
+    }
+    
+    private String getEncodedDummyEvent() {
+    	return encoder.getActivityMapping().entrySet().stream()
+				.filter(entry -> entry.getValue().equals("complete"))
+				.map(Map.Entry::getKey)
+				.findFirst().get();
+    }
+    
+    // Restoring real (decoded) names 
+    private String decode(String answer) {
+        for (Map.Entry<String,String> entry : encoder.getActivityMapping().entrySet())
+        	answer = answer.replace(entry.getKey(), entry.getValue());
+        
+        for (DataMappingElement d : encoder.getDataMapping()) {
+        	answer = answer.replace(d.getEncodedName(), d.getOriginalName());
+        	
+        	for (Map.Entry<String,String> entry : d.getValuesMapping().entrySet())
+        		answer = answer.replace(entry.getKey(), entry.getValue());
+        }
+        
+        return answer;
+    }
 }
@@ -0,0 +1,248 @@
+package core.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.CLI;
+import core.Evaluator;
+import core.Global;
+import core.RunContext;
+import core.exceptions.CaseEvictedException;
+import core.helpers.IOHelper;
+import core.helpers.Telemetry;
+import core.models.AlloyRunConfiguration;
+import core.models.AlloyRunConfiguration.ExecutionMode;
+import core.monitoring.MonitorManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * resident mode: one warm jvm serves many runs over http on localhost.
+ *
+ * POST /run      body - command line arguments, one per line (same as for the jar);
+ *                generation, compliance check, query, ... run in a worker pool with bounded queue
+ * POST /monitor  ?model=FILE&case=ID[&conflict=true], body - event xml; answer of MonitorRunner.setTrace.
+ *                one MonitorManager per model, so cases keep their state between requests;
+ *                503 if the case's stripe queue is full, 409 if the case was evicted and has to be sent again
+ * GET  /status   queue and counters; /metrics and /report - see Telemetry
+ * POST /shutdown stops the server
+ *
+ * every run gets its own RunContext, so concurrent requests do not share settings;
+ * ModelCache and jit-compiled code are shared between runs.
+ * Telemetry is process-wide: /metrics and /report sum all runs since the server started, concurrent ones included,
+ * so -report and -metrics_port are not accepted in a /run body; neither is -server, which would keep a worker busy
+ */
+public class GenerationServer implements AutoCloseable {
+    private static final int monitorCases = 10_000;
+    private static final int monitorQueue = 1_000;  // waiting events per stripe
+    private static final long monitorIdleMillis = TimeUnit.MINUTES.toMillis(30);
+
+    private final HttpServer http;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final ThreadPoolExecutor workers;
+    private final Map<String, MonitorManager> monitors = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final int workerCount;
+
+    public GenerationServer(int port, int workerCount, int queueSize) throws IOException {
+        this.workerCount = workerCount;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.AbortPolicy());
+
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.setExecutor(handlers);
+        http.createContext("/run", exchange -> handle(exchange, this::run));
+        http.createContext("/monitor", exchange -> handle(exchange, this::monitor));
+        http.createContext("/status", exchange -> handle(exchange, this::status));
+        http.createContext("/shutdown", exchange -> handle(exchange, this::shutdown));
+        Telemetry.register(http);
+    }
+
+    public void start() {
+        http.start();
+        Global.log.accept("Server listening on " + http.getAddress() + ", " + workerCount + " workers");
+    }
+
+    public void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        workers.shutdownNow();
+        handlers.shutdownNow();
+        for (MonitorManager i : monitors.values())
+            i.close();
+
+        stopped.countDown();
+    }
+
+    private Response run(HttpExchange exchange) throws Exception {
+        String[] args = readBody(exchange).lines().map(String::trim).filter(i -> !i.isEmpty()).toArray(String[]::new);
+        AlloyRunConfiguration config = CLI.getConfigFromArgs(args);
+        if (config == null)
+            return new Response(400, "{\"status\": \"bad arguments\"}");
+
+        if (config.mode == ExecutionMode.SERVER)
+            return new Response(400, "{\"status\": \"-server is not supported per run\"}");
+
+        if (config.reportFilename != null || config.metricsPort > 0)
+            return new Response(400, "{\"status\": \"-report and -metrics_port are not supported per run, use GET /report or /metrics\"}");
+
+        config.waitInputBeforeExit = false;
+        config.throwErrors = true;
+        RunContext context = RunContext.of(config);
+        long start = System.nanoTime();
+        Future<Void> result;
+        try {
+            result = workers.submit(context.wrap(() -> {
+                Evaluator.run(config);
+                return null;
+            }));
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            return new Response(503, "{\"status\": \"queue is full\"}");
+        }
+
+        try {
+            result.get();
+            completed.incrementAndGet();
+            return new Response(200, "{\"status\": \"done\", \"ms\": " + (System.nanoTime() - start) / 1_000_000 + "}");
+        } catch (ExecutionException ex) {
+            failed.incrementAndGet();
+            return new Response(500, "{\"status\": \"failed\", \"error\": \"" + escape(String.valueOf(ex.getCause())) + "\"}");
+        }
+    }
+
+    private Response monitor(HttpExchange exchange) throws Exception {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String model = query.get("model");
+        String caseId = query.get("case");
+        if (model == null || caseId == null)
+            return new Response(400, "model and case are required");
+
+        boolean conflict = Boolean.parseBoolean(query.get("conflict"));
+        MonitorManager manager = monitors.get(conflict + model);
+        if (manager == null) {
+            synchronized (monitors) {
+                manager = monitors.get(conflict + model);
+                if (manager == null) {
+                    manager = new MonitorManager(conflict, IOHelper.readAllText(model), workerCount, monitorCases, monitorQueue, monitorIdleMillis);
+                    monitors.put(conflict + model, manager);
+                }
+            }
+        }
+
+        String answer;
+        try {
+            answer = manager.submit(caseId, readBody(exchange)).get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RejectedExecutionException) {
+                rejected.incrementAndGet();
+                return new Response(503, "monitoring queue is full");
+            }
+
+            if (ex.getCause() instanceof CaseEvictedException)
+                return new Response(409, ex.getCause().getMessage());
+
+            throw ex;
+        }
+
+        return answer == null ? new Response(500, "event could not be processed") : new Response(200, answer);
+    }
+
+    private Response status(HttpExchange exchange) {
+        return new Response(200, "{\"active\": " + workers.getActiveCount() +
+                ", \"queued\": " + workers.getQueue().size() +
+                ", \"completed\": " + completed.get() +
+                ", \"failed\": " + failed.get() +
+                ", \"rejected\": " + rejected.get() +
+                ", \"monitored_models\": " + monitors.size() + "}");
+    }
+
+    private Response shutdown(HttpExchange exchange) {
+        handlers.submit(this::close);  // after the answer is sent
+        return new Response(200, "{\"status\": \"stopping\"}");
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            response = new Response(500, String.valueOf(ex));
+        }
+
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.code, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = exchange.getRequestBody()) {
+            is.transferTo(out);
+        }
+
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null)
+            return params;
+
+        for (String i : query.split("&")) {
+            int eq = i.indexOf('=');
+            if (eq > 0)
+                params.put(URLDecoder.decode(i.substring(0, eq), "UTF-8"), URLDecoder.decode(i.substring(eq + 1), "UTF-8"));
+        }
+
+        return params;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private static class Response {
+        final int code;
+        final String body;
+
+        Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+}
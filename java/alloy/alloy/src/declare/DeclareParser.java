@@ -21,6 +21,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import core.Global;
+import core.RunContext;
 
 /**
  * Created by Vasiliy on 2017-10-16.
@@ -28,48 +29,42 @@ import core.Global;
 public final class DeclareParser {
 	private static Pattern inRectBrackets = Pattern.compile(".*\\[\\s*(.+?)\\s*].*");
 
-    private static List<String> tasksCode;
-    private static List<String> traceAttributesCode;
-    private static List<String> dataCode;
-    private static List<String> dataBindingsCode;
-    private static List<Statement> constraintsCode;
-    private static List<Statement> dataConstraintsCode;
+    // statements of one model sorted by kind; local to a parse call, so models can be parsed in parallel
+    private static class Sections {
+        final List<String> tasksCode = new ArrayList<>();
+        final List<String> traceAttributesCode = new ArrayList<>();
+        final List<String> dataCode = new ArrayList<>();
+        final List<String> dataBindingsCode = new ArrayList<>();
+        final List<Statement> constraintsCode = new ArrayList<>();
+        final List<Statement> dataConstraintsCode = new ArrayList<>();
+    }
 
     private DeclareParser() {
     	throw new AssertionError();
     }
 
     public static DeclareModel parse(String declare) throws DeclareParserException {
-        init();
         DeclareModel model = new DeclareModel();
         
-        sortInput(splitStatements(declare));
+        Sections sections = sortInput(splitStatements(declare));
         
-        model.setActivities(parseActivities(tasksCode));
+        model.setActivities(parseActivities(sections.tasksCode));
         checkInterference( declare, model.getActivities().stream().map(act -> act.getName()).collect(Collectors.toList()) );
         
-        parseData(dataCode, model.getEnumeratedData(), model.getIntegerData(), model.getFloatData());
+        parseData(sections.dataCode, model.getEnumeratedData(), model.getIntegerData(), model.getFloatData());
         for (EnumeratedData datum : model.getEnumeratedData())
         	checkInterference(declare, Stream.concat(datum.getValues().stream(), List.of(datum.getType()).stream()).collect(Collectors.toList()) );
         
-        parseDataBindings(model.getActivityToData(), model.getDataToActivity());
-        model.setConstraints(parseConstraints());
-        model.setDataConstraints(parseDataConstraints(dataConstraintsCode));
-        parseTraceAttributes(traceAttributesCode, model.getEnumTraceAttributes(), model.getIntTraceAttributes(), model.getFloatTraceAttributes());
+        parseDataBindings(sections.dataBindingsCode, model.getActivityToData(), model.getDataToActivity());
+        model.setConstraints(parseConstraints(sections.constraintsCode));
+        model.setDataConstraints(parseDataConstraints(sections.dataConstraintsCode));
+        parseTraceAttributes(sections.traceAttributesCode, model.getEnumTraceAttributes(), model.getIntTraceAttributes(), model.getFloatTraceAttributes());
         
         return model;
     }
 
-    private static void init() {
-        tasksCode = new ArrayList<>();
-        traceAttributesCode = new ArrayList<>();
-        dataCode = new ArrayList<>();
-        dataBindingsCode = new ArrayList<>();
-        constraintsCode = new ArrayList<>();
-        dataConstraintsCode = new ArrayList<>();
-    }
-
-    private static void sortInput(String[] st) {
+    private static Sections sortInput(String[] st) {
+        Sections sections = new Sections();
         int line = 0;
         for (String i : st) {
             ++line;
@@ -78,26 +73,28 @@ public final class DeclareParser {
                 continue;
 
             if (isActivity(i))
-                tasksCode.add(i);
+                sections.tasksCode.add(i);
 
             if (isTraceAttribute(i))
-                traceAttributesCode.add(i);
+                sections.traceAttributesCode.add(i);
 
             if (isData(i))
-                dataCode.add(i);
+                sections.dataCode.add(i);
 
             if (isDataBinding(i))
-                dataBindingsCode.add(i);
+                sections.dataBindingsCode.add(i);
 
             if (isConstraint(i))
-                constraintsCode.add(new Statement(i, line));
+                sections.constraintsCode.add(new Statement(i, line));
 
             if (isDataConstraint(i))
-                dataConstraintsCode.add(new Statement(i, line));
+                sections.dataConstraintsCode.add(new Statement(i, line));
         }
+
+        return sections;
     }
 
-    private static void parseDataBindings(Map<String, Set<String>> activityToData, Map<String, Set<String>> dataToActivity) {
+    private static void parseDataBindings(List<String> dataBindingsCode, Map<String, Set<String>> activityToData, Map<String, Set<String>> dataToActivity) {
         for (String line : dataBindingsCode) {
             line = line.substring(5);
             List<String> data = Arrays.stream(line.split("[:,\\s+]+")).filter(i -> !i.isEmpty()).collect(Collectors.toList());
@@ -115,7 +112,7 @@ public final class DeclareParser {
         }
     }
 
-    private static List<Constraint> parseConstraints() {
+    private static List<Constraint> parseConstraints(List<Statement> constraintsCode) {
         List<Constraint> constraints = new ArrayList<>();
         for (Statement s : constraintsCode) {
             String[] p = s.getCode().split("\\s*[\\[\\],]\\s*");
@@ -275,7 +272,7 @@ public final class DeclareParser {
                 "\n";
         
         for (String name : names) {
-	        if (Global.deepNamingCheck) {
+	        if (RunContext.current().deepNamingCheck) {
 	            Pattern pattern = Pattern.compile("[\\d\\w]" + name + "[\\d\\w]|[\\d\\w]" + name + "|" + name + "[\\d\\w]");
 	            Matcher m = pattern.matcher(declare);
 	            
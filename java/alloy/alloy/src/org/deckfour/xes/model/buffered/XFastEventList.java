@@ -53,6 +53,10 @@ import org.deckfour.xes.nikefs2.NikeFS2VirtualFileSystem;
  * of the NikeFS2 virtual file system for event logs. Frees main memory for
  * other tasks, while guaranteeing quick sequential and random access to event
  * log data.
+ * <p>
+ * While the list holds no overflow entries or holes, reads go straight to the
+ * disk buffer without locking, so any number of threads may read concurrently.
+ * Modifications are serialized, and must not overlap with reads.
  * 
  * @author Christian W. Guenther (christian@deckfour.org)
  * 
@@ -68,11 +72,17 @@ public class XFastEventList implements Cloneable {
 	/**
 	 * Size of the list.
 	 */
-	protected int size = 0;
+	protected volatile int size = 0;
 	/**
 	 * Sequential event buffer used for raw buffered storage.
 	 */
 	protected XSequentialEventBuffer buffer;
+	/**
+	 * The buffer, while list indices equal buffer indices (no
+	 * overflow entries or holes); <code>null</code> otherwise.
+	 * Used by {@link #get(int)} to read without locking.
+	 */
+	protected volatile XSequentialEventBuffer readBuffer;
 	/**
 	 * Attribute map serializer.
 	 */
@@ -111,6 +121,7 @@ public class XFastEventList implements Cloneable {
 		this.overflowIndices = new int[OVERFLOW_LIMIT];
 		this.overflowEntries = new XEvent[OVERFLOW_LIMIT];
 		this.overflowSize = 0;
+		this.readBuffer = buffer;
 	}
 
 	/**
@@ -169,6 +180,7 @@ public class XFastEventList implements Cloneable {
 			buffer = nBuffer;
 			overflowSize = 0;
 			holeFlags.clear();
+			readBuffer = buffer;
 			return true;
 		} else {
 			return false;
@@ -182,8 +194,26 @@ public class XFastEventList implements Cloneable {
 	 *            Index of the required event in the list.
 	 * @return The requested event.
 	 */
-	public synchronized XEvent get(int index) throws IndexOutOfBoundsException,
+	public XEvent get(int index) throws IndexOutOfBoundsException,
 			IOException {
+		XSequentialEventBuffer untainted = readBuffer;
+		if (untainted != null) {
+			// list index equals buffer index
+			return untainted.get(index);
+		}
+		return getTainted(index);
+	}
+
+	/**
+	 * Retrieves an event at a specific index in the list, correcting the
+	 * index for overflow entries and holes.
+	 * 
+	 * @param index
+	 *            Index of the required event in the list.
+	 * @return The requested event.
+	 */
+	protected synchronized XEvent getTainted(int index)
+			throws IndexOutOfBoundsException, IOException {
 		if (index < 0 || index >= size) {
 			throw new IndexOutOfBoundsException();
 		}
@@ -229,6 +259,7 @@ public class XFastEventList implements Cloneable {
 			return;
 		}
 		// adjust size and overflow size
+		readBuffer = null;
 		size++;
 		overflowSize++;
 		// add to overflow set
@@ -346,6 +377,7 @@ public class XFastEventList implements Cloneable {
 				bufferIndex++;
 			}
 			removed = buffer.get(bufferIndex);
+			readBuffer = null;
 			holeFlags.set(bufferIndex, true);
 		}
 		size--;
@@ -397,7 +429,7 @@ public class XFastEventList implements Cloneable {
 	 * 
 	 * @return The number of currently contained events.
 	 */
-	public synchronized int size() {
+	public int size() {
 		return size;
 	}
 
@@ -425,6 +457,7 @@ public class XFastEventList implements Cloneable {
 		clone.holeFlags= (BitSet) holeFlags.clone();
 		clone.overflowEntries = overflowEntries.clone();
 		clone.overflowIndices = overflowIndices.clone();
+		clone.readBuffer = clone.buffer;
 		return clone;
 	}
 
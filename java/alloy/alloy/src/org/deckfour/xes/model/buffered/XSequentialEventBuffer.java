@@ -42,6 +42,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -81,6 +82,12 @@ import org.deckfour.xes.nikefs2.NikeFS2StorageProvider;
  * <li>Attribute extension URI (UTF-8 encoded String)</li>
  * <li>Serialization of the attribute's attribute map (meta-attributes)</li>
  * </ul>
+ * <p>
+ * The position of each record is kept in an index, so that {@link #get(int)}
+ * reads a record with positional reads from the storage, without navigating
+ * from the current position and without locking. Any number of threads
+ * may call {@link #get(int)} concurrently; modifications are serialized,
+ * and must not overlap with reads.
  * 
  * @author Christian W. Guenther (christian@deckfour.org)
  *
@@ -93,9 +100,21 @@ public class XSequentialEventBuffer implements Cloneable {
 	protected static final int EXTENSION_GENERIC = -1;
 
 	/**
-	 * The number of events contained in a buffer.
+	 * Size in bytes of the fixed record header (forward offset,
+	 * backward offset, payload size).
+	 */
+	protected static final int RECORD_HEADER_SIZE = 12;
+
+	/**
+	 * The number of events contained in a buffer. Written after
+	 * the record of an appended event, so readers see complete records.
 	 */
-	private int size = 0;
+	private volatile int size = 0;
+	/**
+	 * Positions of the event records in the backing storage, by
+	 * event index. Replaced by a larger copy when full.
+	 */
+	private volatile long[] offsets = new long[16];
 	/**
 	 * The current logical index (in number of events)
 	 * in the buffer.
@@ -185,7 +204,7 @@ public class XSequentialEventBuffer implements Cloneable {
 	 * 
 	 * @return number of audit trail entries recorded in this instance
 	 */
-	public synchronized int size() {
+	public int size() {
 		return size;
 	}
 	
@@ -232,6 +251,13 @@ public class XSequentialEventBuffer implements Cloneable {
 		storage.write(segmentPadding);
 		// update last position pointer to this entry
 		lastInsertPosition = insertPosition;
+		// record position in index
+		long[] currentOffsets = offsets;
+		if(size == currentOffsets.length) {
+			currentOffsets = Arrays.copyOf(currentOffsets, size * 2);
+			offsets = currentOffsets;
+		}
+		currentOffsets[size] = insertPosition;
 		// update collection size
 		size++;
 	}
@@ -248,10 +274,9 @@ public class XSequentialEventBuffer implements Cloneable {
 		if(index < 0 || index >= size) {
 			throw new IndexOutOfBoundsException();
 		}
-		// determine and set appropriate file pointer position
-		navigateToIndex(index);
-		storage.seek(position);
-		long atePosition = position;
+		// determine and set appropriate file pointer position from index
+		long atePosition = offsets[index];
+		storage.seek(atePosition);
 		// read navigation data
 		int fwd = storage.readInt();
 		// skip backwards pointer and payload size, not relevant
@@ -273,28 +298,58 @@ public class XSequentialEventBuffer implements Cloneable {
 		} else {
 			success = false;
 		}
-		// return to prior position
+		// continue sequential access from the replaced event
 		this.position = atePosition;
+		this.index = index;
 		storage.seek(this.position);
 		return success;
 	}
 	
 	/**
-	 * Retrieves the event recorded at the specified position
+	 * Retrieves the event recorded at the specified position.
+	 * <p>
+	 * This method does not lock and does not affect the current position
+	 * of the sequential access layer; it may be called concurrently.
 	 * 
 	 * @param eventIndex Position of the requested event, defined
 	 * to be within <code>[0, size()-1]</code>.
 	 * @return The requested event.
 	 */
-	public synchronized XEvent get(int eventIndex) throws IOException, IndexOutOfBoundsException {
+	public XEvent get(int eventIndex) throws IOException, IndexOutOfBoundsException {
+		// read size before index, as the index is published by size
+		int currentSize = size;
+		long[] currentOffsets = offsets;
 		// check for index sanity
-		if(eventIndex < 0 || eventIndex >= size) {
+		if(eventIndex < 0 || eventIndex >= currentSize) {
 			throw new IndexOutOfBoundsException();
 		}
-		// determine and set appropriate file pointer position
-		navigateToIndex(eventIndex);
-		// read and return requested audit trail entry
-		return read();
+		long recordPosition = currentOffsets[eventIndex];
+		// read payload size from record header
+		byte[] header = new byte[RECORD_HEADER_SIZE];
+		readFullyAt(recordPosition, header);
+		int eventSize = ((header[8] & 0xFF) << 24) | ((header[9] & 0xFF) << 16)
+				| ((header[10] & 0xFF) << 8) | (header[11] & 0xFF);
+		// read and decode payload
+		byte[] eventData = new byte[eventSize];
+		readFullyAt(recordPosition + RECORD_HEADER_SIZE, eventData);
+		return decode(eventData);
+	}
+	
+	/**
+	 * Fills the given buffer with a positional read from the storage.
+	 * 
+	 * @param pos Offset in the storage to read from.
+	 * @param buffer Buffer to be filled.
+	 */
+	protected void readFullyAt(long pos, byte[] buffer) throws IOException {
+		int read = 0;
+		while(read < buffer.length) {
+			int readNow = storage.readAt(pos + read, buffer, read, buffer.length - read);
+			if(readNow <= 0) {
+				throw new EOFException();
+			}
+			read += readNow;
+		}
 	}
 	
 	/**
@@ -305,6 +360,7 @@ public class XSequentialEventBuffer implements Cloneable {
 		// close and delete the underlying storage
 		storage.close();
 		size = 0;
+		offsets = new long[16];
 		index = 0;
 		position = 0;
 		lastInsertPosition = -1;
@@ -421,17 +477,27 @@ public class XSequentialEventBuffer implements Cloneable {
 		// event and interprets it from that buffer subsequently.
 		byte[] eventData = new byte[eventSize];
 		storage.readFully(eventData);
-		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(eventData));
-		// read event attribute set
-		XAttributeMap attributes = this.attributeMapSerializer.deserialize(dis);
-		// assemble event
-		XEvent event = factory.createEvent(attributes);
+		XEvent event = decode(eventData);
 		// adjust position of data access layer
 		position = nextPosition;
 		index++;
 		return event;
 	}
 
+	/**
+	 * Decodes an event from the payload of its record.
+	 * 
+	 * @param eventData Payload, as produced by {@link #encode(XEvent)}.
+	 * @return The decoded event.
+	 */
+	protected XEvent decode(byte[] eventData) throws IOException {
+		DataInputStream dis = new DataInputStream(new ByteArrayInputStream(eventData));
+		// read event attribute set
+		XAttributeMap attributes = this.attributeMapSerializer.deserialize(dis);
+		// assemble event
+		return factory.createEvent(attributes);
+	}
+
 	/**
 	 * Encodes the given event into a sequence of bytes.
 	 * This byte array corresponds to the structure of an event record,
@@ -465,6 +531,8 @@ public class XSequentialEventBuffer implements Cloneable {
 				e.printStackTrace();
 				return null;
 			}
+			// the clone appends to its own index
+			clone.offsets = offsets.clone();
 			try {
 				clone.storage = storage.copy();
 			} catch (IOException e) {
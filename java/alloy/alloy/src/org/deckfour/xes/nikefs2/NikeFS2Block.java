@@ -106,6 +106,21 @@ public class NikeFS2Block {
 		return provider.read(blockNumber, blockOffset, buffer, offset, length);
 	}
 	
+	/**
+	 * Read a number of bytes from this block, without locking
+	 * (see {@link NikeFS2BlockProvider#readAt(int, int, byte[], int, int)}).
+	 * 
+	 * @param blockOffset Offset, in bytes, within this block.
+	 * @param buffer Buffer to store read data in.
+	 * @param offset Offset within the buffer to write to.
+	 * @param length Number of bytes to be read.
+	 * @return The number of read bytes.
+	 */
+	public int readAt(int blockOffset, byte[] buffer, int offset, int length) 
+			throws IOException {
+		return provider.readAt(blockNumber, blockOffset, buffer, offset, length);
+	}
+	
 	/**
 	 * Read a number of bytes from this block.
 	 * 
@@ -41,7 +41,9 @@ package org.deckfour.xes.nikefs2;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.BitSet;
 
 /**
@@ -94,6 +96,12 @@ public class NikeFS2BlockProvider {
 	 * currently allocated.
 	 */
 	protected final BitSet blockAllocationMap;
+	/**
+	 * Read-only mapping of the backing file, used by positional
+	 * reads (see {@link #readAt(int, int, byte[], int, int)}).
+	 * Created on first use.
+	 */
+	protected volatile MappedByteBuffer readMap = null;
 	
 	
 	/**
@@ -264,6 +272,48 @@ public class NikeFS2BlockProvider {
 		}
 	}
 	
+	/**
+	 * Reads from the specified block without locking this provider.
+	 * <p>
+	 * In contrast to {@link #read(int, int, byte[], int, int)}, this method
+	 * does not move the position of a shared map, so any number of threads
+	 * may read concurrently. Reads are coherent with writes which have
+	 * completed before, but must not overlap with writes to the same range.
+	 * 
+	 * @param blockNumber Internal number of the block in question.
+	 * @param blockOffset Offset, in bytes, within this block.
+	 * @param buffer Buffer to store read data in.
+	 * @param bufferOffset Offset in the given buffer to start writing at.
+	 * @param length Number of bytes to be read.
+	 * @return The number of read bytes.
+	 */
+	public int readAt(int blockNumber, int blockOffset, byte[] buffer, int bufferOffset, int length) 
+			throws IOException {
+		if(mapped == false) {
+			return read(blockNumber, blockOffset, buffer, bufferOffset, length);
+		}
+		long pointer = getBlockOffset(blockNumber) + blockOffset;
+		int readable = blockSize - blockOffset;
+		int readLength = length;
+		if(readable < length) {
+			readLength = readable;
+		}
+		MappedByteBuffer map = readMap;
+		if(map == null) {
+			synchronized(this) {
+				if(readMap == null) {
+					readMap = rafile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+				}
+				map = readMap;
+			}
+		}
+		// private view, so the position of the shared map is not touched
+		ByteBuffer view = map.duplicate();
+		view.position((int)pointer);
+		view.get(buffer, bufferOffset, readLength);
+		return readLength;
+	}
+	
 	/**
 	 * Reads from the specified block.
 	 * 
@@ -277,8 +327,8 @@ public class NikeFS2BlockProvider {
 		if(mapped == true) {
 			MappedByteBuffer map = NikeFS2FileAccessMonitor.instance().requestMap(this);
 			map.position((int)pointer);
-			int result = map.get();
-			return result + 128;
+			// unsigned, like the bytes of bulk reads
+			return map.get() & 0xFF;
 		} else {
 			rafile.seek(pointer);
 			return rafile.read();
@@ -337,7 +387,7 @@ public class NikeFS2BlockProvider {
 		if(mapped == true) {
 			MappedByteBuffer map = NikeFS2FileAccessMonitor.instance().requestMap(this);
 			map.position((int)pointer);
-			map.put((byte)(value - 128));
+			map.put((byte)value);
 		} else {
 			rafile.seek(pointer);
 			rafile.write(value);
@@ -95,6 +95,23 @@ public interface NikeFS2RandomAccessStorage extends DataOutput, DataInput {
 	public int skipBytes(int n) 
 		throws IOException;
 	
+	/**
+	 * Reads bytes from the given offset, without moving the file pointer.
+	 * <p>
+	 * Positional reads do not lock the storage, so any number of threads
+	 * may read concurrently. They must not overlap with writes to this
+	 * storage.
+	 * 
+	 * @param pos The offset in bytes to read from.
+	 * @param buffer Buffer to store read data in.
+	 * @param offset Offset within the buffer to write to.
+	 * @param length Number of bytes to be read.
+	 * @return The number of read bytes; less than <code>length</code>
+	 * only at the end of the storage.
+	 */
+	public int readAt(long pos, byte[] buffer, int offset, int length)
+		throws IOException;
+	
 	/**
 	 * Creates a clone, or copy, of this storage, having the exact same
 	 * contents and the file pointer reset to zero.
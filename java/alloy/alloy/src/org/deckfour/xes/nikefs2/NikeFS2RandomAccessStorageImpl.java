@@ -205,6 +205,26 @@ public class NikeFS2RandomAccessStorageImpl implements NikeFS2RandomAccessStorag
 		return n;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.nikefs2.NikeFS2RandomAccessStorage#readAt(long, byte[], int, int)
+	 */
+	public int readAt(long pos, byte[] buffer, int offset, int length) throws IOException {
+		// snapshot; the list is only replaced or grown by writers
+		List<NikeFS2Block> current = blocks;
+		int blockNumber = translateToBlockNumber(pos);
+		int blockOffset = translateToBlockOffset(pos);
+		int readBytes = 0;
+		while(length > 0 && blockNumber < current.size()) {
+			int readNow = current.get(blockNumber).readAt(blockOffset, buffer, offset, length);
+			readBytes += readNow;
+			offset += readNow;
+			length -= readNow;
+			blockNumber++;
+			blockOffset = 0;
+		}
+		return readBytes;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.io.DataOutput#write(int)
 	 */